@@ -0,0 +1,68 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+import br.dev.pedrolamarao.gdb.mi.GdbMiReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GDB handler dispatch benchmarks.
+ *
+ * <p>Each operation hands one already parsed message from the reader to a consumer on another thread,
+ * as {@code Gdb} does for every asynchronous message; run with {@code -prof gc} to see allocation per message.</p>
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class GdbDispatchBenchmark
+{
+    @Param({ "SPIN", "YIELD", "PARK" })
+    public GdbRing.Wait wait;
+
+    private GdbMiMessage message;
+
+    private GdbRing ring;
+
+    private GdbAsyncHandler async;
+
+    private volatile long consumed;
+
+    @Setup
+    public void setup () throws IOException
+    {
+        message = GdbMiReader.readMessage(new StringReader("=breakpoint-modified,bkpt={number=\"1\",times=\"1\"}\n"));
+        ring = GdbRing.builder().size(4096).build();
+        ring.consume((event, sequence, last) -> { if (last) consumed = sequence; }, wait);
+        async = GdbAsyncHandler.builder((gdb, message) -> ++consumed).capacity(4096).build();
+    }
+
+    @TearDown
+    public void tearDown ()
+    {
+        ring.close();
+    }
+
+    @Benchmark
+    public void ring ()
+    {
+        ring.handle(null, message);
+    }
+
+    @Benchmark
+    public void async ()
+    {
+        async.handle(null, message);
+    }
+}
@@ -0,0 +1,144 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GDB command round trip benchmarks.
+ *
+ * <p>Commands go through {@link Gdb.GdbCommandBuilder#go()} to a fake GDB process
+ * replying after {@code latency} microseconds with a result record of {@code size} bytes.</p>
+ */
+
+@State(Scope.Thread)
+public class GdbRoundTripBenchmark
+{
+    private static final int pipeline = 64;
+
+    @Param({ "0", "100" })
+    public int latency;
+
+    @Param({ "16", "4096" })
+    public int size;
+
+    @Param({ "false", "true" })
+    public boolean reactor;
+
+    private GdbReactor shared;
+
+    private Gdb gdb;
+
+    private final List<Future<GdbMiMessage.RecordMessage>> responses = new ArrayList<>(Collections.nCopies(pipeline, null));
+
+    @Setup
+    public void setup ()
+    {
+        shared = reactor ? GdbReactor.builder().threads(1).start() : null;
+        gdb = GdbFakeProcess.gdb(script(), shared);
+    }
+
+    GdbFakeScript script ()
+    {
+        return GdbFakeScript.builder()
+            .fallback(GdbFakeScript.done(size))
+            .latency(latency, TimeUnit.MICROSECONDS)
+            .build();
+    }
+
+    @TearDown
+    public void tearDown ()
+    {
+        gdb.close();
+        if (shared != null) shared.close();
+    }
+
+    /**
+     * Latency: one command at a time; see percentiles.
+     */
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public GdbMiMessage.RecordMessage roundTrip () throws Exception
+    {
+        return gdb.gdbSet("width", "0").go().get();
+    }
+
+    /**
+     * Throughput: many commands in flight, as commands per second.
+     */
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(pipeline)
+    public void pipelined () throws Exception
+    {
+        for (int i = 0; i != pipeline; ++i) responses.set(i, gdb.gdbSet("width", "0").go());
+        for (int i = 0; i != pipeline; ++i) responses.get(i).get();
+    }
+
+    /**
+     * Throughput: many commands in flight from many threads sharing one instance, as commands per second.
+     */
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(pipeline)
+    @Threads(4)
+    public void shared (Shared shared) throws Exception
+    {
+        for (int i = 0; i != pipeline; ++i) responses.set(i, shared.gdb.gdbSet("width", "0").go());
+        for (int i = 0; i != pipeline; ++i) responses.get(i).get();
+    }
+
+    @State(Scope.Benchmark)
+    public static class Shared
+    {
+        Gdb gdb;
+
+        @Setup
+        public void setup (GdbRoundTripBenchmark benchmark)
+        {
+            gdb = GdbFakeProcess.gdb(benchmark.script(), null);
+        }
+
+        @TearDown
+        public void tearDown ()
+        {
+            gdb.close();
+        }
+    }
+
+    /**
+     * Throughput: many commands in flight, submitted in one batch, as commands per second.
+     */
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(pipeline)
+    public List<GdbMiMessage.RecordMessage> batched () throws Exception
+    {
+        final Gdb.GdbBatch batch = gdb.batch();
+        for (int i = 0; i != pipeline; ++i) batch.add(gdb.gdbSet("width", "0"));
+        return batch.submit().get();
+    }
+}
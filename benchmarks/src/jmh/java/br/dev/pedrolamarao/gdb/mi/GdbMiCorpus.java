@@ -0,0 +1,134 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import lombok.var;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * GDB/MI benchmark corpus.
+ *
+ * <p>Synthetic GDB output shaped after real sessions debugging a C program on x86-64.</p>
+ */
+
+public enum GdbMiCorpus
+{
+    /**
+     * Execution stopped at breakpoint in a deep frame with many arguments, repeated.
+     */
+
+    stopped
+    {
+        @Override
+        void generate (StringBuilder builder)
+        {
+            for (int i = 0; i != 100; ++i)
+            {
+                builder.append("*stopped,reason=\"breakpoint-hit\",disp=\"keep\",bkptno=\"1\",frame={addr=\"0x");
+                builder.append(Long.toHexString(0x555555555149L + i * 16));
+                builder.append("\",func=\"handle_request\",args=[");
+                for (int j = 0; j != 32; ++j)
+                {
+                    if (j != 0) builder.append(',');
+                    builder.append("{name=\"arg").append(j).append("\",value=\"0x7fffffffe").append(Integer.toHexString(0x100 + j * 8)).append("\"}");
+                }
+                builder.append("],file=\"server/request.c\",fullname=\"/home/user/project/server/request.c\",line=\"");
+                builder.append(100 + i);
+                builder.append("\",arch=\"i386:x86-64\"},thread-id=\"1\",stopped-threads=\"all\",core=\"3\"\n");
+                builder.append("(gdb) \n");
+            }
+        }
+    },
+
+    /**
+     * Result of {@code -stack-list-frames} with 1000 frames.
+     */
+
+    frames
+    {
+        @Override
+        void generate (StringBuilder builder)
+        {
+            builder.append("12^done,stack=[");
+            for (int i = 0; i != 1000; ++i)
+            {
+                if (i != 0) builder.append(',');
+                builder.append("frame={level=\"").append(i).append("\",addr=\"0x");
+                builder.append(Long.toHexString(0x555555555149L + i * 37));
+                builder.append("\",func=\"recurse_").append(i % 7).append("\",file=\"recurse.c\",fullname=\"/home/user/project/recurse.c\",line=\"");
+                builder.append(10 + i % 50);
+                builder.append("\",arch=\"i386:x86-64\"}");
+            }
+            builder.append("]\n(gdb) \n");
+        }
+    },
+
+    /**
+     * Result of {@code -data-disassemble} over 2000 instructions.
+     */
+
+    disassemble
+    {
+        @Override
+        void generate (StringBuilder builder)
+        {
+            final String[] instructions = {
+                "push   %rbp", "mov    %rsp,%rbp", "sub    $0x20,%rsp", "mov    %edi,-0x14(%rbp)",
+                "mov    %rsi,-0x20(%rbp)", "movl   $0x0,-0x4(%rbp)", "callq  0x555555555030 <puts@plt>", "leaveq", "retq",
+            };
+            builder.append("13^done,asm_insns=[");
+            for (int i = 0; i != 2000; ++i)
+            {
+                if (i != 0) builder.append(',');
+                builder.append("{address=\"0x").append(Long.toHexString(0x555555555149L + i * 4));
+                builder.append("\",func-name=\"main\",offset=\"").append(i * 4);
+                builder.append("\",inst=\"").append(instructions[i % instructions.length]).append("\"}");
+            }
+            builder.append("]\n(gdb) \n");
+        }
+    },
+
+    /**
+     * Flood of console stream records, as printed by a chatty CLI command.
+     */
+
+    console
+    {
+        @Override
+        void generate (StringBuilder builder)
+        {
+            for (int i = 0; i != 1000; ++i)
+            {
+                builder.append("~\"#").append(i).append("  0x").append(Long.toHexString(0x555555555149L + i * 37));
+                builder.append(" in recurse (depth=").append(i).append(", name=0x555555556004 \\\"node\\\") at recurse.c:");
+                builder.append(10 + i % 50).append("\\n\"\n");
+            }
+            builder.append("(gdb) \n");
+        }
+    };
+
+    abstract void generate (StringBuilder builder);
+
+    /**
+     * Corpus text.
+     *
+     * @return value
+     */
+
+    public String text ()
+    {
+        final var builder = new StringBuilder();
+        generate(builder);
+        return builder.toString();
+    }
+
+    /**
+     * Corpus bytes, UTF-8 encoded.
+     *
+     * @return value
+     */
+
+    public byte[] bytes ()
+    {
+        return text().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,29 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * GDB/MI benchmark counters.
+ *
+ * <p>Reported as rates next to the primary result: messages per second and bytes per second.</p>
+ */
+
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+@State(Scope.Thread)
+public class GdbMiCounters
+{
+    public long messages;
+
+    public long bytes;
+
+    @Setup(Level.Iteration)
+    public void reset ()
+    {
+        messages = 0;
+        bytes = 0;
+    }
+}
@@ -0,0 +1,111 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import lombok.var;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GDB/MI reader benchmarks.
+ *
+ * <p>Each operation reads the entire corpus.</p>
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class GdbMiReaderBenchmark
+{
+    @Param({ "stopped", "frames", "disassemble", "console" })
+    public GdbMiCorpus corpus;
+
+    private String text;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setup ()
+    {
+        text = corpus.text();
+        bytes = corpus.bytes();
+    }
+
+    @Benchmark
+    public void readMessage (GdbMiCounters counters, Blackhole blackhole) throws IOException
+    {
+        final Reader reader = new StringReader(text);
+        while (true)
+        {
+            final var message = GdbMiReader.readMessage(reader);
+            if (message == null) break;
+            blackhole.consume(message);
+            ++counters.messages;
+        }
+        counters.bytes += bytes.length;
+    }
+
+    @Benchmark
+    public void readFromReader (GdbMiCounters counters, Blackhole blackhole) throws IOException
+    {
+        final var reader = GdbMiReader.fromReader( new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8) );
+        while (true)
+        {
+            final var message = reader.read();
+            if (message == null) break;
+            blackhole.consume(message);
+            ++counters.messages;
+        }
+        counters.bytes += bytes.length;
+    }
+
+    @Benchmark
+    public void readFromStream (GdbMiCounters counters, Blackhole blackhole) throws IOException
+    {
+        final var reader = GdbMiReader.fromStream(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8);
+        while (true)
+        {
+            final var message = reader.read();
+            if (message == null) break;
+            blackhole.consume(message);
+            ++counters.messages;
+        }
+        counters.bytes += bytes.length;
+    }
+
+    @Benchmark
+    public void readFromStreamLazy (GdbMiCounters counters, Blackhole blackhole) throws IOException
+    {
+        final var reader = GdbMiReader.fromStream(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8).lazy(true);
+        while (true)
+        {
+            final var message = reader.read();
+            if (message == null) break;
+            blackhole.consume(message);
+            ++counters.messages;
+        }
+        counters.bytes += bytes.length;
+    }
+
+    @Benchmark
+    public void readIncremental (GdbMiCounters counters, Blackhole blackhole)
+    {
+        final var reader = GdbMiReader.incremental();
+        counters.messages += reader.feed(ByteBuffer.wrap(bytes), blackhole::consume);
+        counters.bytes += bytes.length;
+    }
+}
@@ -0,0 +1,77 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GDB/MI writer benchmarks.
+ *
+ * <p>Each operation builds and serializes one command, as {@code Gdb} does for every command,
+ * into a reused command buffer, as {@code GdbProcess} does.</p>
+ */
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+public class GdbMiWriterBenchmark
+{
+    private final GdbMiBuffer buffer = new GdbMiBuffer();
+
+    private final CharArrayWriter sink = new CharArrayWriter(256);
+
+    private int context = 0;
+
+    private void write (GdbMiWriter writer, GdbMiCounters counters)
+    {
+        writer.context(++context).write(buffer.reset());
+        ++counters.messages;
+        counters.bytes += buffer.length();
+    }
+
+    @Benchmark
+    public void breakInsertToWriter (GdbMiCounters counters) throws IOException
+    {
+        sink.reset();
+        GdbMiWriter.breakInsert().pending().symbol("handle_request").context(++context).write(sink);
+        ++counters.messages;
+        counters.bytes += sink.size();
+    }
+
+    @Benchmark
+    public void breakInsert (GdbMiCounters counters)
+    {
+        write(GdbMiWriter.breakInsert().pending().symbol("handle_request"), counters);
+    }
+
+    @Benchmark
+    public void execContinue (GdbMiCounters counters)
+    {
+        write(GdbMiWriter.execContinue(), counters);
+    }
+
+    @Benchmark
+    public void fileExecAndSymbols (GdbMiCounters counters)
+    {
+        write(GdbMiWriter.fileExecAndSymbols().path("/home/user/project/build/server"), counters);
+    }
+
+    @Benchmark
+    public void gdbSet (GdbMiCounters counters)
+    {
+        write(GdbMiWriter.gdbSet().pair("print pretty", "on"), counters);
+    }
+
+    @Benchmark
+    public void interpreterExec (GdbMiCounters counters)
+    {
+        write(GdbMiWriter.interpreterExec("console", "info", "registers", "rip"), counters);
+    }
+}
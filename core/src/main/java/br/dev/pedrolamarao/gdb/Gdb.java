@@ -1,17 +1,27 @@
 package br.dev.pedrolamarao.gdb;
 
 import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+import br.dev.pedrolamarao.gdb.mi.GdbMiType;
+import br.dev.pedrolamarao.gdb.mi.GdbMiVisitor;
 import br.dev.pedrolamarao.gdb.mi.GdbMiWriter;
 import lombok.var;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
  * GDB programmatic interface.
@@ -21,23 +31,61 @@ public class Gdb implements AutoCloseable
 {
     private final AtomicInteger counter = new AtomicInteger();
 
-    private final ConcurrentHashMap<Integer, CompletableFuture<GdbMiMessage.RecordMessage>> contexts = new ConcurrentHashMap<>();
+    private final GdbPending pending = new GdbPending(64);
 
-    private final ArrayList<GdbHandler> handlers = new ArrayList<>();
+    private final CompletableFuture<Gdb> exit = new CompletableFuture<>();
+
+    private volatile IOException terminated = null;
+
+    private final ConcurrentLinkedQueue<CompletableFuture<GdbMiMessage.RecordMessage>> stops = new ConcurrentLinkedQueue<>();
+
+    private final GdbSubscriptions subscriptions;
 
     private final GdbProcess process;
 
+    private final GdbAdmission admission;
+
+    private final GdbQueries queries;
+
     private final Thread thread;
 
     // life cicle
 
-    Gdb (GdbProcess process, Collection<GdbHandler> handlers)
+    Gdb (GdbProcess process, Collection<GdbHandler> handlers, GdbReactor reactor)
     {
-        this.handlers.addAll(handlers);
+        this(process, subscriptions(handlers), reactor, Integer.MAX_VALUE, false);
+    }
+
+    Gdb (GdbProcess process, GdbSubscriptions subscriptions, GdbReactor reactor, int inflight, boolean coalesce)
+    {
+        this.subscriptions = subscriptions.copy();
         this.process = process;
-        this.thread = new Thread(this::read);
+        this.admission = new GdbAdmission(inflight, process.writer.executor());
+        this.queries = coalesce ? new GdbQueries() : null;
+        if (queries != null) {
+            // before any other handler, so handlers see fresh results
+            this.subscriptions.first(GdbMiType.Execute, "running", (gdb, message) -> queries.invalidate());
+            this.subscriptions.first(GdbMiType.Execute, "stopped", (gdb, message) -> queries.invalidate());
+        }
+        this.subscriptions.add(GdbMiType.Execute, "stopped", (gdb, message) -> stopped((GdbMiMessage.RecordMessage) message));
 
-        thread.start();
+        if (reactor == null)
+        {
+            this.thread = new Thread(this::read);
+            thread.start();
+        }
+        else
+        {
+            this.thread = null;
+            reactor.register(process, input(), this::terminate);
+        }
+    }
+
+    private static GdbSubscriptions subscriptions (Collection<GdbHandler> handlers)
+    {
+        final var subscriptions = new GdbSubscriptions();
+        handlers.forEach(handler -> subscriptions.add(null, null, handler));
+        return subscriptions;
     }
 
     /**
@@ -58,7 +106,7 @@ public class Gdb implements AutoCloseable
     public void close ()
     {
         process.destroyForcibly();
-        thread.interrupt();
+        if (thread != null) thread.interrupt();
     }
 
     /**
@@ -72,6 +120,42 @@ public class Gdb implements AutoCloseable
         return process.exitValue();
     }
 
+    /**
+     * Termination future, completed when the GDB process terminates.
+     *
+     * <p>Commands still pending at termination have already failed when it completes.</p>
+     *
+     * @return new future
+     */
+
+    public CompletableFuture<Gdb> onExit ()
+    {
+        return exit.thenApply(gdb -> gdb);
+    }
+
+    /**
+     * Property: command admission control, with queue depth and wait time.
+     *
+     * @return value
+     * @see Builder#inflight(int)
+     */
+
+    public GdbAdmission admission ()
+    {
+        return admission;
+    }
+
+    /**
+     * Property: count of commands waiting for results.
+     *
+     * @return value
+     */
+
+    public int pending ()
+    {
+        return pending.size();
+    }
+
     /**
      * Wait for GDB instance to terminate.
      *
@@ -90,20 +174,455 @@ public class Gdb implements AutoCloseable
 
     public abstract class GdbCommandBuilder
     {
+        private long deadline = 0;
+
+        private boolean failFast = false;
+
+        private boolean priority = false;
+
         protected abstract GdbMiWriter writer ();
 
         GdbCommandBuilder () { }
 
+        /**
+         * Property: command deadline.
+         *
+         * <p>If GDB does not respond in time, the result future completes exceptionally with {@link TimeoutException}
+         * and the command is forgotten; its late result is ignored.
+         * Cancelling the result future also forgets the command.</p>
+         *
+         * @param time  time limit, or zero for none
+         * @param unit  time unit
+         * @return      this builder
+         */
+
+        public GdbCommandBuilder deadline (long time, TimeUnit unit)
+        {
+            if (time < 0) throw new IllegalArgumentException("deadline must not be negative");
+            deadline = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Property: fail fast on admission.
+         *
+         * <p>If too many commands are in flight, the result future completes exceptionally with
+         * {@link java.util.concurrent.RejectedExecutionException} instead of waiting for admission.</p>
+         *
+         * @param value  true to fail fast
+         * @return       this builder
+         * @see Builder#inflight(int)
+         */
+
+        public GdbCommandBuilder failFast (boolean value)
+        {
+            failFast = value;
+            return this;
+        }
+
+        /**
+         * Property: priority lane.
+         *
+         * <p>Priority commands are written ahead of queued commands, and are not subject to admission control;
+         * meant for control commands such as {@code -exec-interrupt}.</p>
+         *
+         * @param value  true for the priority lane
+         * @return       this builder
+         */
+
+        public GdbCommandBuilder priority (boolean value)
+        {
+            priority = value;
+            return this;
+        }
+
+        /**
+         * Command GDB.
+         *
+         * <p>Safe for concurrent use. Commands are queued to the writer stage and written in submission order;
+         * communication failures complete the result future exceptionally.</p>
+         *
+         * @return             result future
+         * @throws IOException if communication failure
+         */
+
         public Future<GdbMiMessage.RecordMessage> go () throws IOException
         {
-            final var context = counter.incrementAndGet();
-            final var future = new CompletableFuture<GdbMiMessage.RecordMessage>();
-            contexts.put(context, future);
-            process.write( writer().context(context) );
+            return go(null);
+        }
+
+        /**
+         * Command GDB, streaming the result to a visitor.
+         *
+         * <p>Result properties are pushed to the visitor on the reading thread while parsing;
+         * the resulting record carries the result class only.
+         * Error results are not visited and keep their properties.</p>
+         *
+         * @param visitor      result visitor
+         * @return             result future
+         * @throws IOException if communication failure
+         */
+
+        public Future<GdbMiMessage.RecordMessage> go (GdbMiVisitor visitor) throws IOException
+        {
+            final var future = register(visitor, null);
+            submit(future);
+            return future;
+        }
+
+        private void submit (GdbCommandFuture future)
+        {
+            if (queries != null && ! (this instanceof GdbQueryBuilder)) queries.invalidate();
+            if (priority) {
+                process.writer.submitUrgent(writer(), future);
+            }
+            else if (admission.limit() == Integer.MAX_VALUE) {
+                process.writer.submit(writer(), future);
+            }
+            else {
+                admission.submit(new GdbCommandFuture[] { future }, () -> {
+                    if (! future.isDone()) process.writer.submit(writer(), future);
+                }, failFast);
+            }
+        }
+
+        CompletableFuture<GdbMiMessage.RecordMessage> untilStopped () throws IOException
+        {
+            // armed by this command's result, so earlier stops cannot complete it
+            final var stop = new CompletableFuture<GdbMiMessage.RecordMessage>();
+            final var result = register(null, stop);
+            submit(result);
+            result.whenComplete((record, e) -> {
+                if (e == null && ! record.content().type().equals("error")) return;
+                stop.completeExceptionally(e != null ? e : failure(record));
+            });
+            if (deadline != 0)
+            {
+                final var timeout = new GdbTimer.Timeout() {
+                    @Override void expire () {
+                        stop.completeExceptionally(new TimeoutException("gdb: command " + result.context + " did not stop in time"));
+                    }
+                };
+                GdbTimer.shared().schedule(timeout, deadline, TimeUnit.NANOSECONDS);
+                stop.whenComplete((record, e) -> GdbTimer.shared().cancel(timeout));
+            }
+            stop.whenComplete((record, e) -> { if (e != null) stops.remove(stop); });
+            return stop;
+        }
+
+        GdbCommandFuture register (GdbMiVisitor visitor, CompletableFuture<GdbMiMessage.RecordMessage> stop)
+        {
+            final var context = counter.incrementAndGet() & Integer.MAX_VALUE;
+            final var future = new GdbCommandFuture(context, visitor, deadline, stop);
+            pending.put(future);
+            future.schedule();
+            final var cause = terminated;
+            if (cause != null) future.completeExceptionally(cause);
+            writer().context(context);
             return future;
         }
     }
 
+    /**
+     * GDB read-only query builder.
+     *
+     * <p>With query coalescing, identical queries share one round trip and one result;
+     * each caller gets its own future, so cancelling one leaves the others be.
+     * A shared query keeps the deadline of the command that issued it.
+     * Queries streaming to a visitor are never shared.</p>
+     *
+     * @see Builder#coalesce(boolean)
+     */
+
+    public abstract class GdbQueryBuilder extends GdbCommandBuilder
+    {
+        GdbQueryBuilder () { }
+
+        @Override
+        public Future<GdbMiMessage.RecordMessage> go (GdbMiVisitor visitor) throws IOException
+        {
+            if (queries == null || visitor != null) return super.go(visitor);
+
+            final var key = writer().key();
+            if (key == null) return super.go(null);
+
+            // claim the query before issuing it, so identical queries find it
+            final var shared = new CompletableFuture<GdbMiMessage.RecordMessage>();
+            final var claimed = queries.putIfAbsent(key, shared);
+            if (claimed != null) return claimed.thenApply(record -> record);
+
+            final Future<GdbMiMessage.RecordMessage> future;
+            try
+            {
+                future = super.go(null);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                queries.remove(key, shared);
+                shared.completeExceptionally(e);
+                throw e;
+            }
+            ((GdbCommandFuture) future).whenComplete((record, e) -> {
+                if (e == null) {
+                    shared.complete(record);
+                    return;
+                }
+                queries.remove(key, shared);
+                shared.completeExceptionally(e);
+            });
+            return shared.thenApply(record -> record);
+        }
+    }
+
+    /**
+     * GDB execution command builder.
+     */
+
+    public abstract class GdbExecBuilder extends GdbCommandBuilder
+    {
+        GdbExecBuilder () { }
+
+        /**
+         * Command GDB, then wait for execution to stop.
+         *
+         * <p>The returned future completes with the first {@code *stopped} record following the command's result,
+         * routed by the dispatch table; it starts waiting as the reader takes the result, in order with other records,
+         * so a stop following the result closely is never missed, and earlier stops are never taken for it.
+         * It completes exceptionally if the command fails or GDB rejects it, if the deadline, if any, expires first,
+         * or if the GDB process terminates. Cancelling it leaves the command be.</p>
+         *
+         * @return             stop future
+         * @throws IOException if communication failure
+         */
+
+        public CompletableFuture<GdbMiMessage.RecordMessage> goUntilStopped () throws IOException
+        {
+            return untilStopped();
+        }
+    }
+
+    /**
+     * GDB command result future.
+     *
+     * <p>Forgets its command when completed exceptionally, cancelled or expired,
+     * so failed commands leave nothing pending.</p>
+     */
+
+    final class GdbCommandFuture extends CompletableFuture<GdbMiMessage.RecordMessage>
+    {
+        final int context;
+
+        final GdbMiVisitor visitor;
+
+        final CompletableFuture<GdbMiMessage.RecordMessage> stop;
+
+        private final long deadline;
+
+        private final GdbTimer.Timeout timeout;
+
+        // guarded by admission
+        boolean admitted = false;
+
+        GdbCommandFuture (int context, GdbMiVisitor visitor, long deadline)
+        {
+            this(context, visitor, deadline, null);
+        }
+
+        GdbCommandFuture (int context, GdbMiVisitor visitor, long deadline, CompletableFuture<GdbMiMessage.RecordMessage> stop)
+        {
+            this.context = context;
+            this.visitor = visitor;
+            this.stop = stop;
+            this.deadline = deadline;
+            this.timeout = (deadline == 0) ? null : new GdbTimer.Timeout() {
+                @Override void expire () {
+                    completeExceptionally(new TimeoutException("gdb: command " + context + " timed out"));
+                }
+            };
+        }
+
+        void schedule ()
+        {
+            if (timeout != null) GdbTimer.shared().schedule(timeout, deadline, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public boolean complete (GdbMiMessage.RecordMessage value)
+        {
+            final var completed = super.complete(value);
+            if (completed) {
+                if (timeout != null) GdbTimer.shared().cancel(timeout);
+                admission.release(this);
+            }
+            return completed;
+        }
+
+        @Override
+        public boolean completeExceptionally (Throwable e)
+        {
+            // forget before waking waiters, so they find nothing pending
+            if (! isDone()) forget();
+            final var completed = super.completeExceptionally(e);
+            // admitted since forgotten, if at all
+            if (completed) admission.release(this);
+            return completed;
+        }
+
+        @Override
+        public boolean cancel (boolean interrupt)
+        {
+            if (! isDone()) forget();
+            final var cancelled = super.cancel(interrupt);
+            if (cancelled) admission.release(this);
+            return cancelled;
+        }
+
+        private void forget ()
+        {
+            pending.remove(this);
+            if (timeout != null) GdbTimer.shared().cancel(timeout);
+            admission.release(this);
+        }
+    }
+
+    /**
+     * GDB command batch.
+     *
+     * <p>Commands in a batch are written to GDB at once, with a single write,
+     * so GDB consumes them back to back.</p>
+     */
+
+    public final class GdbBatch
+    {
+        private final ArrayList<GdbCommandBuilder> commands = new ArrayList<>();
+
+        private final ArrayList<GdbMiVisitor> visitors = new ArrayList<>();
+
+        private final ArrayList<Future<GdbMiMessage.RecordMessage>> futures = new ArrayList<>();
+
+        private boolean submitted = false;
+
+        GdbBatch () { }
+
+        /**
+         * Add command.
+         *
+         * @param command  command builder
+         * @return         this batch
+         */
+
+        public GdbBatch add (GdbCommandBuilder command)
+        {
+            return add(command, null);
+        }
+
+        /**
+         * Add command, streaming the result to a visitor.
+         *
+         * @param command  command builder
+         * @param visitor  result visitor
+         * @return         this batch
+         * @see GdbCommandBuilder#go(GdbMiVisitor)
+         */
+
+        public GdbBatch add (GdbCommandBuilder command, GdbMiVisitor visitor)
+        {
+            if (submitted) throw new IllegalStateException("batch already submitted");
+            if (commands.contains(command)) throw new IllegalArgumentException("command already in batch");
+            commands.add(command);
+            visitors.add(visitor);
+            return this;
+        }
+
+        /**
+         * Property: result futures, in command order; empty until submitted.
+         *
+         * @return value
+         */
+
+        public List<Future<GdbMiMessage.RecordMessage>> futures ()
+        {
+            return Collections.unmodifiableList(futures);
+        }
+
+        /**
+         * Command GDB.
+         *
+         * <p>Communication failures complete every result future exceptionally.</p>
+         *
+         * @return             combined result future, completed when every command completes
+         * @throws IOException if communication failure
+         */
+
+        public CompletableFuture<List<GdbMiMessage.RecordMessage>> submit () throws IOException
+        {
+            if (submitted) throw new IllegalStateException("batch already submitted");
+            submitted = true;
+
+            if (queries != null && ! commands.stream().allMatch(command -> command instanceof GdbQueryBuilder)) queries.invalidate();
+
+            final var writers = new ArrayList<GdbMiWriter>(commands.size());
+            final var registered = new GdbCommandFuture[commands.size()];
+            for (int i = 0; i != commands.size(); ++i)
+            {
+                final var command = commands.get(i);
+                final var future = command.register(visitors.get(i), null);
+                writers.add(command.writer());
+                futures.add(future);
+                registered[i] = future;
+            }
+
+            if (! writers.isEmpty())
+            {
+                if (admission.limit() == Integer.MAX_VALUE) {
+                    process.writer.submit(writers, Arrays.asList(registered));
+                }
+                else {
+                    // admitted whole, as one write
+                    admission.submit(registered, () -> process.writer.submit(writers, Arrays.asList(registered)), false);
+                }
+            }
+
+            return CompletableFuture.allOf(registered).thenApply(ignored -> {
+                final var records = new ArrayList<GdbMiMessage.RecordMessage>(registered.length);
+                for (var future : registered) records.add(future.join());
+                return records;
+            });
+        }
+    }
+
+    /**
+     * Command GDB in batch.
+     *
+     * @return  new batch
+     */
+
+    public GdbBatch batch ()
+    {
+        return new GdbBatch();
+    }
+
+    public final class GdbBreakDeleteBuilder extends GdbCommandBuilder
+    {
+        private final GdbMiWriter.GdbMiBreakDeleteWriter writer;
+
+        GdbBreakDeleteBuilder (GdbMiWriter.GdbMiBreakDeleteWriter writer) { this.writer = writer; }
+
+        protected GdbMiWriter writer () { return writer; }
+    }
+
+    /**
+     * Command GDB to delete breakpoints.
+     *
+     * @param breakpoints  breakpoint numbers, or none for every breakpoint
+     * @return             command builder
+     */
+
+    public GdbBreakDeleteBuilder breakDelete (int... breakpoints)
+    {
+        return new GdbBreakDeleteBuilder(GdbMiWriter.breakDelete().breakpoints(breakpoints));
+    }
+
     public final class GdbBreakInsertBuilder extends GdbCommandBuilder
     {
         private final GdbMiWriter.GdbMiBreakInsertWriter writer;
@@ -114,83 +633,193 @@ public class Gdb implements AutoCloseable
 
         public GdbBreakInsertBuilder pending () { writer.pending(); return this; }
 
-        protected GdbMiWriter.GdbMiBreakInsertWriter writer () { return writer; }
+        protected GdbMiWriter.GdbMiBreakInsertWriter writer () { return writer; }
+    }
+
+    /**
+     * Command GDB to break at symbol.
+     *
+     * @param symbol  symbol to break upon
+     * @return        command builder
+     */
+    public GdbBreakInsertBuilder breakInsertAtSymbol (String symbol)
+    {
+        return new GdbBreakInsertBuilder(GdbMiWriter.breakInsert().symbol(symbol));
+    }
+
+    public final class GdbBreakWatchBuilder extends GdbCommandBuilder
+    {
+        private final GdbMiWriter.GdbMiBreakWatchWriter writer;
+
+        GdbBreakWatchBuilder (GdbMiWriter.GdbMiBreakWatchWriter writer) { this.writer = writer; }
+
+        public GdbBreakWatchBuilder read () { writer.read(); return this; }
+
+        protected GdbMiWriter writer () { return writer; }
+    }
+
+    /**
+     * Command GDB to watch symbol.
+     *
+     * @param symbol  symbol to watch
+     * @return        command builder
+     */
+
+    public GdbBreakWatchBuilder breakWatch (String symbol)
+    {
+        return new GdbBreakWatchBuilder(GdbMiWriter.breakWatch().symbol(symbol));
+    }
+
+    public final class GdbDataListRegisterValuesBuilder extends GdbQueryBuilder
+    {
+        private final GdbMiWriter.GdbMiDataListRegisterValuesWriter writer;
+
+        GdbDataListRegisterValuesBuilder (GdbMiWriter.GdbMiDataListRegisterValuesWriter writer) { this.writer = writer; }
+
+        public GdbDataListRegisterValuesBuilder format (String value) { writer.format(value); return this; }
+
+        public GdbDataListRegisterValuesBuilder frame (int thread, int frame) { writer.frame(thread, frame); return this; }
+
+        public GdbDataListRegisterValuesBuilder registers (int... value) { writer.registers(value); return this; }
+
+        protected GdbMiWriter writer () { return writer; }
+    }
+
+    /**
+     * Query GDB for register values, in hexadecimal unless otherwise formatted.
+     *
+     * @return  command builder
+     */
+
+    public GdbDataListRegisterValuesBuilder dataListRegisterValues ()
+    {
+        return new GdbDataListRegisterValuesBuilder( GdbMiWriter.dataListRegisterValues() );
+    }
+
+    public final class GdbExecContinueBuilder extends GdbExecBuilder
+    {
+        private final GdbMiWriter.GdbMiExecContinueWriter writer;
+
+        GdbExecContinueBuilder () { writer = GdbMiWriter.execContinue(); }
+
+        protected GdbMiWriter writer () { return writer; }
+    }
+
+    /**
+     * Command GDB to continue execution.
+     *
+     * @return  command builder
+     */
+
+    public GdbExecContinueBuilder execContinue ()
+    {
+        return new GdbExecContinueBuilder();
+    }
+
+    public final class GdbExecInterruptBuilder extends GdbExecBuilder
+    {
+        private final GdbMiWriter.GdbMiExecInterruptWriter writer;
+
+        GdbExecInterruptBuilder () { writer = GdbMiWriter.execInterrupt(); }
+
+        public GdbExecInterruptBuilder all () { writer.all(); return this; }
+
+        protected GdbMiWriter writer () { return writer; }
+    }
+
+    /**
+     * Command GDB to interrupt execution.
+     *
+     * @return  command builder
+     * @see #interrupt()
+     */
+
+    public GdbExecInterruptBuilder execInterrupt ()
+    {
+        return new GdbExecInterruptBuilder();
     }
 
     /**
-     * Command GDB to break at symbol.
+     * Interrupt execution, through the priority lane.
      *
-     * @param symbol  symbol to break upon
-     * @return        command builder
+     * <p>The returned future completes with the next {@code *stopped} record,
+     * or exceptionally if GDB rejects the interrupt, as when the target is not running.</p>
+     *
+     * @return             stop future
+     * @throws IOException if communication failure
      */
-    public GdbBreakInsertBuilder breakInsertAtSymbol (String symbol)
+
+    public CompletableFuture<GdbMiMessage.RecordMessage> interrupt () throws IOException
     {
-        return new GdbBreakInsertBuilder(GdbMiWriter.breakInsert().symbol(symbol));
+        final var builder = execInterrupt();
+        builder.priority(true);
+        return builder.goUntilStopped();
     }
 
-    public final class GdbBreakWatchBuilder extends GdbCommandBuilder
+    public final class GdbExecRunBuilder extends GdbExecBuilder
     {
-        private final GdbMiWriter.GdbMiBreakWatchWriter writer;
+        private final GdbMiWriter.GdbMiExecRunWriter writer;
 
-        GdbBreakWatchBuilder (GdbMiWriter.GdbMiBreakWatchWriter writer) { this.writer = writer; }
+        public GdbExecRunBuilder (GdbMiWriter.GdbMiExecRunWriter writer) { this.writer = writer; }
 
-        public GdbBreakWatchBuilder read () { writer.read(); return this; }
+        public GdbExecRunBuilder stopAtMain () { writer.stop(); return this; }
 
         protected GdbMiWriter writer () { return writer; }
     }
 
     /**
-     * Command GDB to watch symbol.
+     * Command GDB to start execution.
      *
-     * @param symbol  symbol to watch
-     * @return        command builder
+     * @return  command builder
      */
 
-    public GdbBreakWatchBuilder breakWatch (String symbol)
+    public GdbExecRunBuilder execRun ()
     {
-        return new GdbBreakWatchBuilder(GdbMiWriter.breakWatch().symbol(symbol));
+        return new GdbExecRunBuilder( GdbMiWriter.execRun() );
     }
 
-    public final class GdbExecContinueBuilder extends GdbCommandBuilder
+    public final class GdbExecStepBuilder extends GdbExecBuilder
     {
-        private final GdbMiWriter.GdbMiExecContinueWriter writer;
+        private final GdbMiWriter.GdbMiExecStepWriter writer;
 
-        GdbExecContinueBuilder () { writer = GdbMiWriter.execContinue(); }
+        GdbExecStepBuilder (GdbMiWriter.GdbMiExecStepWriter writer) { this.writer = writer; }
+
+        public GdbExecStepBuilder reverse () { writer.reverse(); return this; }
 
         protected GdbMiWriter writer () { return writer; }
     }
 
     /**
-     * Command GDB to continue execution.
+     * Command GDB to run until the current function returns.
      *
      * @return  command builder
      */
 
-    public GdbExecContinueBuilder execContinue ()
+    public GdbExecStepBuilder execFinish ()
     {
-        return new GdbExecContinueBuilder();
+        return new GdbExecStepBuilder( GdbMiWriter.execFinish() );
     }
 
-    public final class GdbExecRunBuilder extends GdbCommandBuilder
-    {
-        private final GdbMiWriter.GdbMiExecRunWriter writer;
-
-        public GdbExecRunBuilder (GdbMiWriter.GdbMiExecRunWriter writer) { this.writer = writer; }
-
-        public GdbExecRunBuilder stopAtMain () { writer.stop(); return this; }
+    /**
+     * Command GDB to run to the next source line, stepping over calls.
+     *
+     * @return  command builder
+     */
 
-        protected GdbMiWriter writer () { return writer; }
+    public GdbExecStepBuilder execNext ()
+    {
+        return new GdbExecStepBuilder( GdbMiWriter.execNext() );
     }
 
     /**
-     * Command GDB to start execution.
+     * Command GDB to run to the next source line, stepping into calls.
      *
      * @return  command builder
      */
 
-    public GdbExecRunBuilder execRun ()
+    public GdbExecStepBuilder execStep ()
     {
-        return new GdbExecRunBuilder( GdbMiWriter.execRun() );
+        return new GdbExecStepBuilder( GdbMiWriter.execStep() );
     }
 
     public final class GdbFileExecAndSymbolsBuilder extends GdbCommandBuilder
@@ -299,6 +928,56 @@ public class Gdb implements AutoCloseable
         return new GdbInterpreterExecBuilder( GdbMiWriter.interpreterExec().interpreter(interpreter).command(command) );
     }
 
+    public final class GdbStackListFramesBuilder extends GdbQueryBuilder
+    {
+        private final GdbMiWriter.GdbMiStackListFramesWriter writer;
+
+        GdbStackListFramesBuilder (GdbMiWriter.GdbMiStackListFramesWriter writer) { this.writer = writer; }
+
+        public GdbStackListFramesBuilder range (int low, int high) { writer.range(low, high); return this; }
+
+        public GdbStackListFramesBuilder thread (int value) { writer.thread(value); return this; }
+
+        protected GdbMiWriter writer () { return writer; }
+    }
+
+    /**
+     * Query GDB for stack frames.
+     *
+     * @return  command builder
+     */
+
+    public GdbStackListFramesBuilder stackListFrames ()
+    {
+        return new GdbStackListFramesBuilder( GdbMiWriter.stackListFrames() );
+    }
+
+    public final class GdbStackListLocalsBuilder extends GdbQueryBuilder
+    {
+        private final GdbMiWriter.GdbMiStackListLocalsWriter writer;
+
+        GdbStackListLocalsBuilder (GdbMiWriter.GdbMiStackListLocalsWriter writer) { this.writer = writer; }
+
+        public GdbStackListLocalsBuilder all () { writer.all(); return this; }
+
+        public GdbStackListLocalsBuilder frame (int thread, int frame) { writer.frame(thread, frame); return this; }
+
+        public GdbStackListLocalsBuilder names () { writer.names(); return this; }
+
+        protected GdbMiWriter writer () { return writer; }
+    }
+
+    /**
+     * Query GDB for local variables, with simple values unless otherwise chosen.
+     *
+     * @return  command builder
+     */
+
+    public GdbStackListLocalsBuilder stackListLocals ()
+    {
+        return new GdbStackListLocalsBuilder( GdbMiWriter.stackListLocals() );
+    }
+
     public final class GdbTargetSelectBuilder extends GdbCommandBuilder
     {
         private final GdbMiWriter.GdbMiTargetSelectWriter writer;
@@ -336,50 +1015,246 @@ public class Gdb implements AutoCloseable
     /**
      * Register GDB event handler.
      *
+     * <p>The handler runs on the reader thread; see {@link GdbAsyncHandler} for slow handlers.</p>
+     *
      * @param handler  GDB event handler
      */
 
     public void handle (GdbHandler handler)
     {
-        handlers.add(handler);
+        subscriptions.add(null, null, handler);
+    }
+
+    /**
+     * Register GDB event handler for messages of type.
+     *
+     * @param type     message type
+     * @param handler  GDB event handler
+     */
+
+    public void handle (GdbMiType type, GdbHandler handler)
+    {
+        subscriptions.add(Objects.requireNonNull(type, "type"), null, handler);
+    }
+
+    /**
+     * Register GDB event handler for records of type and class.
+     *
+     * <p>Example: {@code handle(GdbMiType.Execute, "stopped", handler)} for {@code *stopped} records.</p>
+     *
+     * @param type     message type
+     * @param klass    record class
+     * @param handler  GDB event handler
+     */
+
+    public void handle (GdbMiType type, String klass, GdbHandler handler)
+    {
+        subscriptions.add(Objects.requireNonNull(type, "type"), Objects.requireNonNull(klass, "klass"), handler);
+    }
+
+    /**
+     * Register GDB event handler, running on executor.
+     *
+     * @param handler   GDB event handler
+     * @param executor  handler executor
+     * @return          asynchronous handler
+     * @see GdbAsyncHandler
+     */
+
+    public GdbAsyncHandler handle (GdbHandler handler, Executor executor)
+    {
+        final var async = GdbAsyncHandler.builder(handler).executor(executor).build();
+        subscriptions.add(null, null, async);
+        return async;
+    }
+
+    /**
+     * Unregister GDB event handler, from every message type and record class it was registered for.
+     *
+     * @param handler  GDB event handler, or asynchronous handler if registered with an executor
+     * @return         true if registered
+     */
+
+    public boolean unhandle (GdbHandler handler)
+    {
+        return subscriptions.remove(handler);
+    }
+
+    /**
+     * Property: registered handlers, as a snapshot.
+     *
+     * @return value
+     */
+
+    GdbSubscriptions handlers ()
+    {
+        return subscriptions.copy();
+    }
+
+    /**
+     * Property: registered handlers, restored from snapshot.
+     *
+     * @param value  snapshot
+     */
+
+    void handlers (GdbSubscriptions value)
+    {
+        subscriptions.restore(value);
     }
 
     // internal
 
+    private void stopped (GdbMiMessage.RecordMessage record)
+    {
+        CompletableFuture<GdbMiMessage.RecordMessage> stop;
+        while ((stop = stops.poll()) != null) stop.complete(record);
+    }
+
+    static RuntimeException failure (GdbMiMessage.RecordMessage record)
+    {
+        final var message = record.content().properties().get("msg", String.class);
+        return new RuntimeException("gdb: failure: " + message);
+    }
+
     void read ()
     {
+        final var input = input();
+        final var stream = process.process.getInputStream();
+        final var buffer = new byte[8192];
+        Throwable failure = null;
         try
         {
             while (true)
             {
-                final var message = process.read();
-                if (message == null) break;
+                final var count = stream.read(buffer);
+                if (count == -1) break;
+                input.accept(ByteBuffer.wrap(buffer, 0, count));
+            }
+        }
+        catch (Throwable e)
+        {
+            failure = e;
+        }
+        terminate(failure);
+    }
 
-                switch (message.type())
-                {
-                case Log:
-                case Console:
-                case Target:
-                case Execute:
-                case Notify:
-                case Status:
-                case Prompt:
-                    handlers.forEach(handler -> handler.handle(this, message));
-                    break;
-                case Result:
-                    final var record = (GdbMiMessage.RecordMessage) message;
-                    final var context = message.context();
-                    if (context == null) break;
-                    final var future = contexts.get(context);
-                    future.complete(record);
-                    contexts.remove(context);
-                    break;
-                }
+    /**
+     * Process output consumer: parse output chunks, accepting every message.
+     *
+     * <p>GDB/MI messages are single lines, so a line that cannot be parsed is skipped and reported as uncaught,
+     * and the instance stays in step with GDB; a command whose result cannot be parsed fails by its deadline, if any.</p>
+     *
+     * @return new consumer
+     */
+
+    private Consumer<ByteBuffer> input ()
+    {
+        final var reader = process.incremental().visitors(pending::visitor);
+        final Consumer<GdbMiMessage> sink = this::accept;
+        return chunk -> {
+            try
+            {
+                reader.feed(chunk, sink);
+            }
+            catch (RuntimeException e)
+            {
+                GdbThreads.uncaught(new IOException("gdb: process output unreadable", e));
+            }
+        };
+    }
+
+    /**
+     * Terminate: fail pending commands, then complete the termination future when the process exits.
+     *
+     * <p>Reading that fails unexpectedly, other than by I/O failure, leaves the instance out of step with GDB,
+     * so the process is destroyed.</p>
+     *
+     * @param failure  null at end-of-stream, or read failure
+     */
+
+    void terminate (Throwable failure)
+    {
+        final IOException cause;
+        if (failure == null) {
+            cause = new IOException("gdb: process output ended");
+        }
+        else if (failure instanceof IOException) {
+            cause = new IOException("gdb: process output failed", failure);
+        }
+        else {
+            cause = new IOException("gdb: process reading failed", failure);
+            process.destroyForcibly();
+        }
+        terminated = cause;
+        pending.fail(cause);
+        CompletableFuture<GdbMiMessage.RecordMessage> stop;
+        while ((stop = stops.poll()) != null) stop.completeExceptionally(cause);
+
+        if (! process.process.isAlive() || thread == Thread.currentThread()) {
+            exited();
+            return;
+        }
+
+        // do not block a shared reactor thread
+        final var waiter = new Thread(this::exited, "gdb-exit");
+        waiter.setDaemon(true);
+        waiter.start();
+    }
+
+    private void exited ()
+    {
+        boolean interrupted = false;
+        while (true)
+        {
+            try
+            {
+                process.process.waitFor();
+                break;
+            }
+            catch (InterruptedException e)
+            {
+                // close interrupts the reader thread
+                interrupted = true;
             }
         }
-        catch (Exception e)
+        exit.complete(this);
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+
+    void accept (GdbMiMessage message)
+    {
+        switch (message.type())
         {
-            throw new RuntimeException(e);
+        case Log:
+        case Console:
+        case Target:
+        case Execute:
+        case Notify:
+        case Status:
+        case Prompt:
+            for (var handler : subscriptions.get(message))
+            {
+                // handler failures are not GDB failures
+                try
+                {
+                    handler.handle(this, message);
+                }
+                catch (Throwable e)
+                {
+                    GdbThreads.uncaught(e);
+                }
+            }
+            break;
+        case Result:
+            final var record = (GdbMiMessage.RecordMessage) message;
+            final var context = message.token();
+            if (context < 0) break;
+            final var future = pending.take(context);
+            if (future == null) break;
+            // on the reader thread, ahead of any later *stopped
+            if (future.stop != null && ! future.stop.isDone() && ! record.content().type().equals("error")) stops.add(future.stop);
+            future.complete(record);
+            break;
         }
     }
 
@@ -389,10 +1264,16 @@ public class Gdb implements AutoCloseable
 
     public static final class Builder
     {
-        private final ArrayList<GdbHandler> handlers = new ArrayList<>();
+        private final GdbSubscriptions subscriptions = new GdbSubscriptions();
 
         private final GdbProcess.Builder process = GdbProcess.builder();
 
+        private GdbReactor reactor = null;
+
+        private int inflight = Integer.MAX_VALUE;
+
+        private boolean coalesce = false;
+
         Builder () { }
 
         /**
@@ -408,6 +1289,22 @@ public class Gdb implements AutoCloseable
             return this;
         }
 
+        /**
+         * Property: lazy record decoding.
+         *
+         * <p>Lazy records decode property values on first access,
+         * so large replies nobody inspects cost little more than their raw bytes.</p>
+         *
+         * @param value  true to decode lazily
+         * @return       this builder
+         */
+
+        public Builder lazy (boolean value)
+        {
+            process.lazy(value);
+            return this;
+        }
+
         /**
          * Property: GDB async message handler.
          *
@@ -417,7 +1314,100 @@ public class Gdb implements AutoCloseable
 
         public Builder handler (GdbHandler handler)
         {
-            handlers.add(handler);
+            subscriptions.add(null, null, handler);
+            return this;
+        }
+
+        /**
+         * Property: GDB async message handler, for messages of type.
+         *
+         * @param type     message type
+         * @param handler  handler
+         * @return         this builder
+         */
+
+        public Builder handler (GdbMiType type, GdbHandler handler)
+        {
+            subscriptions.add(Objects.requireNonNull(type, "type"), null, handler);
+            return this;
+        }
+
+        /**
+         * Property: GDB async message handler, for records of type and class.
+         *
+         * @param type     message type
+         * @param klass    record class, such as {@code stopped}
+         * @param handler  handler
+         * @return         this builder
+         */
+
+        public Builder handler (GdbMiType type, String klass, GdbHandler handler)
+        {
+            subscriptions.add(Objects.requireNonNull(type, "type"), Objects.requireNonNull(klass, "klass"), handler);
+            return this;
+        }
+
+        /**
+         * Property: GDB async message handler, running on executor.
+         *
+         * @param handler   handler
+         * @param executor  handler executor
+         * @return          this builder
+         * @see GdbAsyncHandler
+         */
+
+        public Builder handler (GdbHandler handler, Executor executor)
+        {
+            subscriptions.add(null, null, GdbAsyncHandler.builder(handler).executor(executor).build());
+            return this;
+        }
+
+        /**
+         * Property: maximum count of commands in flight.
+         *
+         * <p>Commands beyond the limit wait for admission without blocking their submitter,
+         * or fail fast; see {@link GdbCommandBuilder#failFast(boolean)}.</p>
+         *
+         * @param value  limit, or {@link Integer#MAX_VALUE} for none
+         * @return       this builder
+         * @see GdbAdmission
+         */
+
+        public Builder inflight (int value)
+        {
+            if (value < 1) throw new IllegalArgumentException("inflight must be positive");
+            inflight = value;
+            return this;
+        }
+
+        /**
+         * Property: query coalescing.
+         *
+         * <p>Identical read-only queries share one round trip until the next execution transition;
+         * see {@link GdbQueryBuilder}.</p>
+         *
+         * @param value  true to coalesce queries
+         * @return       this builder
+         */
+
+        public Builder coalesce (boolean value)
+        {
+            coalesce = value;
+            return this;
+        }
+
+        /**
+         * Property: shared I/O reactor.
+         *
+         * <p>Instances sharing a reactor are read by its threads instead of a reader thread each.</p>
+         *
+         * @param value  reactor, or null for a dedicated reader thread
+         * @return       this builder
+         */
+
+        public Builder reactor (GdbReactor value)
+        {
+            reactor = value;
             return this;
         }
 
@@ -430,7 +1420,12 @@ public class Gdb implements AutoCloseable
 
         public Gdb start () throws IOException
         {
-            return new Gdb(process.start(), handlers);
+            return start(process.start());
+        }
+
+        Gdb start (GdbProcess process)
+        {
+            return new Gdb(process, subscriptions, reactor, inflight, coalesce);
         }
     }
 }
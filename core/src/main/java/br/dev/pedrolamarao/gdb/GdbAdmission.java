@@ -0,0 +1,241 @@
+package br.dev.pedrolamarao.gdb;
+
+import lombok.var;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * GDB command admission control.
+ *
+ * <p>Limits the count of commands in flight, that is, written to GDB and not yet completed.
+ * Commands beyond the limit wait in a queue, in submission order, without blocking any thread:
+ * each completion admits the next waiting commands; or fail fast, as their submitter chooses.
+ * Commands completed while waiting, as by deadline or cancellation, are never written.</p>
+ *
+ * <p>Completions happen on reader threads, which must not block on writes to GDB,
+ * so commands admitted by completions are written on the writer thread.</p>
+ *
+ * <p>Exposes queue depth and wait time, for sizing limits and pools.</p>
+ */
+
+public final class GdbAdmission
+{
+    private final int limit;
+
+    private final Executor executor;
+
+    private final ArrayDeque<Waiter> waiting = new ArrayDeque<>();
+
+    private int inflight = 0;
+
+    private long admitted = 0;
+
+    private long rejected = 0;
+
+    private long waitNanos = 0;
+
+    private long maxWaitNanos = 0;
+
+    GdbAdmission (int limit, Executor executor)
+    {
+        this.limit = limit;
+        this.executor = executor;
+    }
+
+    /**
+     * Property: maximum count of commands in flight.
+     *
+     * @return value, or {@link Integer#MAX_VALUE} if unlimited
+     */
+
+    public int limit ()
+    {
+        return limit;
+    }
+
+    /**
+     * Property: count of commands in flight.
+     *
+     * @return value
+     */
+
+    public synchronized int inflight ()
+    {
+        return inflight;
+    }
+
+    /**
+     * Property: count of submissions waiting for admission.
+     *
+     * @return value
+     */
+
+    public synchronized int queued ()
+    {
+        return waiting.size();
+    }
+
+    /**
+     * Property: count of commands admitted.
+     *
+     * @return value
+     */
+
+    public synchronized long admitted ()
+    {
+        return admitted;
+    }
+
+    /**
+     * Property: count of commands rejected for failing fast.
+     *
+     * @return value
+     */
+
+    public synchronized long rejected ()
+    {
+        return rejected;
+    }
+
+    /**
+     * Property: total time waited by admitted submissions.
+     *
+     * @return value in nanoseconds
+     */
+
+    public synchronized long waitNanos ()
+    {
+        return waitNanos;
+    }
+
+    /**
+     * Property: longest time waited by an admitted submission.
+     *
+     * @return value in nanoseconds
+     */
+
+    public synchronized long maxWaitNanos ()
+    {
+        return maxWaitNanos;
+    }
+
+    /**
+     * Submit commands for admission.
+     *
+     * @param futures   command futures, registered
+     * @param write     writes commands when admitted
+     * @param failFast  true to fail instead of waiting
+     */
+
+    void submit (Gdb.GdbCommandFuture[] futures, Runnable write, boolean failFast)
+    {
+        if (limit == Integer.MAX_VALUE) {
+            write.run();
+            return;
+        }
+
+        final boolean admit;
+        synchronized (this)
+        {
+            if (waiting.isEmpty() && fits(futures.length)) {
+                admit(futures);
+                admit = true;
+            }
+            else if (failFast) {
+                rejected += futures.length;
+                admit = false;
+            }
+            else {
+                waiting.add(new Waiter(futures, write, System.nanoTime()));
+                return;
+            }
+        }
+
+        if (admit) {
+            write.run();
+            return;
+        }
+
+        final var e = new RejectedExecutionException("gdb: too many commands in flight, limit " + limit);
+        for (var future : futures) future.completeExceptionally(e);
+    }
+
+    /**
+     * Release command, if admitted; admit waiting commands in its place.
+     *
+     * <p>Call after completing the future: admission skips completed futures,
+     * so a future is either never admitted or released here.</p>
+     *
+     * @param future  completed command future
+     */
+
+    void release (Gdb.GdbCommandFuture future)
+    {
+        if (limit == Integer.MAX_VALUE) return;
+
+        ArrayList<Runnable> writes = null;
+        synchronized (this)
+        {
+            if (! future.admitted) return;
+            future.admitted = false;
+            --inflight;
+
+            while (! waiting.isEmpty())
+            {
+                final var waiter = waiting.peek();
+                int weight = 0;
+                for (var candidate : waiter.futures) if (! candidate.isDone()) ++weight;
+                if (weight != 0 && ! fits(weight)) break;
+                waiting.poll();
+                if (weight == 0) continue;
+
+                admit(waiter.futures);
+                final var waited = System.nanoTime() - waiter.since;
+                waitNanos += waited;
+                maxWaitNanos = Math.max(maxWaitNanos, waited);
+                if (writes == null) writes = new ArrayList<>();
+                writes.add(waiter.write);
+            }
+        }
+
+        if (writes == null) return;
+        final var admitted = writes;
+        executor.execute(() -> admitted.forEach(Runnable::run));
+    }
+
+    private boolean fits (int weight)
+    {
+        // a submission larger than the limit is admitted alone
+        return inflight == 0 || inflight + weight <= limit;
+    }
+
+    private void admit (Gdb.GdbCommandFuture[] futures)
+    {
+        for (var future : futures)
+        {
+            if (future.isDone()) continue;
+            future.admitted = true;
+            ++inflight;
+            ++admitted;
+        }
+    }
+
+    private static final class Waiter
+    {
+        final Gdb.GdbCommandFuture[] futures;
+
+        final Runnable write;
+
+        final long since;
+
+        Waiter (Gdb.GdbCommandFuture[] futures, Runnable write, long since)
+        {
+            this.futures = futures;
+            this.write = write;
+            this.since = since;
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+import lombok.var;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GDB asynchronous handler.
+ *
+ * <p>Runs a handler on its own executor, off the reader thread:
+ * messages are queued in a bounded per-handler queue and handled in order, one at a time,
+ * so a slow handler delays neither message parsing nor command completion, nor other handlers.</p>
+ *
+ * <p>When the queue is full, the {@link Overflow overflow policy} decides
+ * whether the reader waits for the handler or messages are discarded.
+ * If the executor rejects draining, queued messages are discarded and counted as dropped,
+ * and the rejection is reported as uncaught; draining is tried again with the next message.</p>
+ */
+
+public final class GdbAsyncHandler implements GdbHandler
+{
+    /**
+     * Queue overflow policy.
+     */
+
+    public enum Overflow
+    {
+        /**
+         * Wait for the handler to make room: the reader thread is blocked, no message is lost.
+         */
+
+        BLOCK,
+
+        /**
+         * Discard the oldest queued message.
+         */
+
+        DROP_OLDEST,
+
+        /**
+         * Replace the newest queued record of the same type and class, such as a previous {@code =breakpoint-modified},
+         * keeping its place in the queue; discard the oldest queued message if there is none.
+         */
+
+        COALESCE,
+    }
+
+    private static final int batch = 64;
+
+    private final GdbHandler handler;
+
+    private final Executor executor;
+
+    private final Overflow overflow;
+
+    // queue state, guarded by this
+
+    private final Gdb[] sources;
+
+    private final GdbMiMessage[] messages;
+
+    private int head = 0;
+
+    private int size = 0;
+
+    private boolean scheduled = false;
+
+    private long dropped = 0;
+
+    GdbAsyncHandler (GdbHandler handler, Executor executor, int capacity, Overflow overflow)
+    {
+        this.handler = handler;
+        this.executor = executor;
+        this.overflow = overflow;
+        this.sources = new Gdb[capacity];
+        this.messages = new GdbMiMessage[capacity];
+    }
+
+    /**
+     * GDB asynchronous handler builder.
+     *
+     * @param handler  handler
+     * @return         new builder
+     */
+
+    public static Builder builder (GdbHandler handler)
+    {
+        return new Builder(handler);
+    }
+
+    /**
+     * Property: count of messages discarded or coalesced on overflow.
+     *
+     * @return value
+     */
+
+    public synchronized long dropped ()
+    {
+        return dropped;
+    }
+
+    /**
+     * Property: count of queued messages.
+     *
+     * @return value
+     */
+
+    public synchronized int pending ()
+    {
+        return size;
+    }
+
+    /**
+     * Queue message for handling.
+     *
+     * @param gdb      GDB instance
+     * @param message  message
+     */
+
+    @Override
+    public void handle (Gdb gdb, GdbMiMessage message)
+    {
+        synchronized (this)
+        {
+            if (size == messages.length && ! overflow(gdb, message)) return;
+            final var tail = (head + size) % messages.length;
+            sources[tail] = gdb;
+            messages[tail] = message;
+            ++size;
+            if (scheduled) return;
+            scheduled = true;
+        }
+        schedule();
+    }
+
+    /**
+     * Make room for message.
+     *
+     * @return true if message must still be queued
+     */
+
+    private boolean overflow (Gdb gdb, GdbMiMessage message)
+    {
+        switch (overflow)
+        {
+        case BLOCK:
+            try
+            {
+                while (size == messages.length) wait();
+                return true;
+            }
+            catch (InterruptedException e)
+            {
+                // reader is closing
+                Thread.currentThread().interrupt();
+                ++dropped;
+                return false;
+            }
+        case COALESCE:
+            final var key = key(message);
+            if (key != null)
+            {
+                for (int i = size - 1; i >= 0; --i)
+                {
+                    final var index = (head + i) % messages.length;
+                    if (sources[index] == gdb && key.equals(key(messages[index])))
+                    {
+                        messages[index] = message;
+                        ++dropped;
+                        return false;
+                    }
+                }
+            }
+            dropOldest();
+            return true;
+        case DROP_OLDEST:
+        default:
+            dropOldest();
+            return true;
+        }
+    }
+
+    private void dropOldest ()
+    {
+        sources[head] = null;
+        messages[head] = null;
+        head = (head + 1) % messages.length;
+        --size;
+        ++dropped;
+    }
+
+    private static String key (GdbMiMessage message)
+    {
+        if (! (message instanceof GdbMiMessage.RecordMessage)) return null;
+        return message.type() + ((GdbMiMessage.RecordMessage) message).content().type();
+    }
+
+    private void drain ()
+    {
+        for (int n = 0; n != batch; ++n)
+        {
+            final Gdb gdb;
+            final GdbMiMessage message;
+            synchronized (this)
+            {
+                if (size == 0) {
+                    scheduled = false;
+                    return;
+                }
+                gdb = sources[head];
+                message = messages[head];
+                sources[head] = null;
+                messages[head] = null;
+                head = (head + 1) % messages.length;
+                --size;
+                if (overflow == Overflow.BLOCK) notifyAll();
+            }
+            try
+            {
+                handler.handle(gdb, message);
+            }
+            catch (Throwable e)
+            {
+                GdbThreads.uncaught(e);
+            }
+        }
+
+        // give other tasks sharing the executor a turn
+        schedule();
+    }
+
+    private void schedule ()
+    {
+        try
+        {
+            executor.execute(this::drain);
+        }
+        catch (RejectedExecutionException e)
+        {
+            synchronized (this)
+            {
+                // nothing would ever drain them, and blocked readers would wait forever
+                dropped += size;
+                Arrays.fill(sources, null);
+                Arrays.fill(messages, null);
+                head = 0;
+                size = 0;
+                scheduled = false;
+                if (overflow == Overflow.BLOCK) notifyAll();
+            }
+            GdbThreads.uncaught(e);
+        }
+    }
+
+    /**
+     * GDB asynchronous handler builder.
+     */
+
+    public static final class Builder
+    {
+        private final GdbHandler handler;
+
+        private Executor executor = null;
+
+        private boolean virtual = false;
+
+        private int capacity = 1024;
+
+        private Overflow overflow = Overflow.BLOCK;
+
+        Builder (GdbHandler handler)
+        {
+            this.handler = Objects.requireNonNull(handler, "handler");
+        }
+
+        /**
+         * Property: handler executor.
+         *
+         * <p>Messages are handled one at a time, in order, even if the executor has many threads.
+         * By default, each handler has a dedicated thread, stopped while idle.</p>
+         *
+         * @param value  executor
+         * @return       this builder
+         */
+
+        public Builder executor (Executor value)
+        {
+            executor = value;
+            return this;
+        }
+
+        /**
+         * Property: handle messages on virtual threads.
+         *
+         * <p>Ignored on JDKs without virtual threads, or if an executor is set.</p>
+         *
+         * @param value  true for virtual threads
+         * @return       this builder
+         */
+
+        public Builder virtual (boolean value)
+        {
+            virtual = value;
+            return this;
+        }
+
+        /**
+         * Property: queue capacity.
+         *
+         * @param value  maximum count of queued messages
+         * @return       this builder
+         */
+
+        public Builder capacity (int value)
+        {
+            if (value < 1) throw new IllegalArgumentException("capacity must be positive");
+            capacity = value;
+            return this;
+        }
+
+        /**
+         * Property: queue overflow policy.
+         *
+         * @param value  policy
+         * @return       this builder
+         */
+
+        public Builder overflow (Overflow value)
+        {
+            overflow = Objects.requireNonNull(value, "overflow");
+            return this;
+        }
+
+        /**
+         * Build asynchronous handler.
+         *
+         * @return new handler
+         */
+
+        public GdbAsyncHandler build ()
+        {
+            var executor = this.executor;
+            if (executor == null && virtual) executor = GdbThreads.virtualExecutor().orElse(null);
+            if (executor == null) executor = dedicated();
+            return new GdbAsyncHandler(handler, executor, capacity, overflow);
+        }
+
+        private static Executor dedicated ()
+        {
+            final var executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+                final var thread = new Thread(task, "gdb-handler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+            return executor;
+        }
+    }
+}
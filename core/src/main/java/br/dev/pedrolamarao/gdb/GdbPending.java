@@ -0,0 +1,183 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiVisitor;
+import lombok.var;
+
+import java.util.Arrays;
+
+/**
+ * GDB pending command table.
+ *
+ * <p>Command tokens increase monotonically, so pending commands are kept in an open-addressed ring array,
+ * starting at {@code token & mask} and probing linearly; each slot keeps its command, whose token is checked on lookup,
+ * so stale tokens find nothing. With commands completing roughly in order, a command is nearly always in its first slot.
+ * The array grows only when more commands are in flight than slots; a command outliving many turns of the ring
+ * costs later commands one probe, not growth. Removal shifts later commands of the same probe sequence back,
+ * so lookups stop at the first empty slot.
+ * Correlating a result with its command allocates nothing and boxes nothing.</p>
+ *
+ * <p>Operations are short and guarded by this table's monitor.</p>
+ */
+
+final class GdbPending
+{
+    private Gdb.GdbCommandFuture[] slots;
+
+    private int mask;
+
+    private int size = 0;
+
+    GdbPending (int capacity)
+    {
+        this.slots = new Gdb.GdbCommandFuture[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Property: count of pending commands.
+     *
+     * @return value
+     */
+
+    synchronized int size ()
+    {
+        return size;
+    }
+
+    /**
+     * Property: count of slots.
+     *
+     * @return value
+     */
+
+    synchronized int capacity ()
+    {
+        return slots.length;
+    }
+
+    /**
+     * Add pending command.
+     *
+     * @param future  command future
+     */
+
+    synchronized void put (Gdb.GdbCommandFuture future)
+    {
+        if (size == slots.length) grow();
+        insert(slots, mask, future);
+        ++size;
+    }
+
+    /**
+     * Remove pending command, if any.
+     *
+     * @param token  command token
+     * @return       command future, or null
+     */
+
+    synchronized Gdb.GdbCommandFuture take (int token)
+    {
+        final var index = find(token);
+        if (index < 0) return null;
+        final var future = slots[index];
+        delete(index);
+        return future;
+    }
+
+    /**
+     * Remove pending command, if still pending.
+     *
+     * @param future  command future
+     */
+
+    synchronized void remove (Gdb.GdbCommandFuture future)
+    {
+        final var index = find(future.context);
+        if (index < 0 || slots[index] != future) return;
+        delete(index);
+    }
+
+    /**
+     * Remove all pending commands, completing them exceptionally.
+     *
+     * @param cause  failure
+     */
+
+    void fail (Throwable cause)
+    {
+        final Gdb.GdbCommandFuture[] failed;
+        synchronized (this)
+        {
+            failed = slots.clone();
+            Arrays.fill(slots, null);
+            size = 0;
+        }
+        for (var future : failed) {
+            if (future != null) future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Result visitor of pending command.
+     *
+     * @param token  command token
+     * @return       visitor, or null
+     */
+
+    synchronized GdbMiVisitor visitor (int token)
+    {
+        final var index = find(token);
+        return (index < 0) ? null : slots[index].visitor;
+    }
+
+    private int find (int token)
+    {
+        var index = token & mask;
+        // bounded, since a full table has no empty slot to stop at
+        for (int n = 0; n != slots.length; ++n)
+        {
+            final var future = slots[index];
+            if (future == null) return -1;
+            if (future.context == token) return index;
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void delete (int index)
+    {
+        slots[index] = null;
+        --size;
+        // shift back later commands that probed past this slot
+        var next = index;
+        while (true)
+        {
+            next = (next + 1) & mask;
+            final var future = slots[next];
+            if (future == null) return;
+            final var home = future.context & mask;
+            final var reachable = (index <= next) ? (index < home && home <= next) : (index < home || home <= next);
+            if (reachable) continue;
+            slots[index] = future;
+            slots[next] = null;
+            index = next;
+        }
+    }
+
+    private static void insert (Gdb.GdbCommandFuture[] slots, int mask, Gdb.GdbCommandFuture future)
+    {
+        var index = future.context & mask;
+        while (slots[index] != null) index = (index + 1) & mask;
+        slots[index] = future;
+    }
+
+    private void grow ()
+    {
+        final var capacity = slots.length * 2;
+        if (capacity <= 0) throw new IllegalStateException("too many pending commands");
+        final var grown = new Gdb.GdbCommandFuture[capacity];
+        for (var future : slots) if (future != null) insert(grown, capacity - 1, future);
+        slots = grown;
+        mask = capacity - 1;
+    }
+}
@@ -0,0 +1,608 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+import lombok.var;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * GDB session pool.
+ *
+ * <p>Keeps sessions started, with an executable and its symbols already loaded, and hands them out by lease,
+ * so GDB startup and symbol reading are paid once per session rather than once per use.
+ * Returned sessions are reset, unregistering handlers registered during the lease,
+ * killing the inferior and deleting breakpoints, before the next lease.
+ * Sessions that fail to reset in time, terminate, or outlive their maximum lifetime are evicted
+ * and replaced in the background.</p>
+ *
+ * <p>Leases wait without blocking any thread, and are granted in request order.</p>
+ */
+
+public final class GdbPool implements AutoCloseable
+{
+    private static final String notRunning = "The program is not being run.";
+
+    private final Callable<Gdb> factory;
+
+    private final String executable;
+
+    private final int size;
+
+    private final long lifetime;
+
+    private final long timeout;
+
+    private final Executor executor = executor();
+
+    private final ArrayDeque<Session> idle = new ArrayDeque<>();
+
+    private final ArrayDeque<CompletableFuture<Lease>> waiting = new ArrayDeque<>();
+
+    private int live = 0;
+
+    private long evicted = 0;
+
+    private boolean closed = false;
+
+    GdbPool (Callable<Gdb> factory, String executable, int size, long lifetime, long timeout)
+    {
+        this.factory = factory;
+        this.executable = executable;
+        this.size = size;
+        this.lifetime = lifetime;
+        this.timeout = timeout;
+    }
+
+    /**
+     * GDB session pool builder.
+     *
+     * @param gdb  GDB instance builder, for every session
+     * @return     new builder
+     */
+
+    public static Builder builder (Gdb.Builder gdb)
+    {
+        Objects.requireNonNull(gdb, "gdb");
+        return new Builder(gdb::start);
+    }
+
+    static Builder builder (Callable<Gdb> factory)
+    {
+        return new Builder(factory);
+    }
+
+    /**
+     * Property: count of sessions kept.
+     *
+     * @return value
+     */
+
+    public int size ()
+    {
+        return size;
+    }
+
+    /**
+     * Property: count of sessions idle, ready for lease.
+     *
+     * @return value
+     */
+
+    public synchronized int idle ()
+    {
+        return idle.size();
+    }
+
+    /**
+     * Property: count of sessions alive or starting, idle or leased.
+     *
+     * @return value
+     */
+
+    public synchronized int live ()
+    {
+        return live;
+    }
+
+    /**
+     * Property: count of sessions evicted.
+     *
+     * @return value
+     */
+
+    public synchronized long evicted ()
+    {
+        return evicted;
+    }
+
+    /**
+     * Lease session.
+     *
+     * <p>The future completes when a session is idle; cancelling it withdraws the request.</p>
+     *
+     * @return lease future
+     */
+
+    public CompletableFuture<Lease> lease ()
+    {
+        final var future = new CompletableFuture<Lease>();
+        final var stale = new ArrayList<Session>();
+        Session session = null;
+        synchronized (this)
+        {
+            if (closed) {
+                future.completeExceptionally(new IllegalStateException("pool closed"));
+                return future;
+            }
+            while (session == null && ! idle.isEmpty())
+            {
+                final var candidate = idle.poll();
+                if (healthy(candidate)) session = candidate;
+                else stale.add(candidate);
+            }
+            if (session == null) waiting.add(future);
+        }
+
+        stale.forEach(this::evict);
+        if (session != null) future.complete(new Lease(session));
+        // replace sessions that failed to start
+        else grow();
+        return future;
+    }
+
+    /**
+     * Close pool: close idle sessions, and leased sessions when returned.
+     *
+     * <p>Pending lease futures complete exceptionally.</p>
+     */
+
+    @Override
+    public void close ()
+    {
+        final ArrayList<Session> sessions;
+        final ArrayList<CompletableFuture<Lease>> futures;
+        synchronized (this)
+        {
+            if (closed) return;
+            closed = true;
+            sessions = new ArrayList<>(idle);
+            futures = new ArrayList<>(waiting);
+            live -= idle.size();
+            idle.clear();
+            waiting.clear();
+        }
+
+        sessions.forEach(Session::close);
+        final var e = new IllegalStateException("pool closed");
+        futures.forEach(future -> future.completeExceptionally(e));
+    }
+
+    // sessions
+
+    private boolean healthy (Session session)
+    {
+        return ! session.gdb.onExit().isDone() && ! expired(session);
+    }
+
+    private boolean expired (Session session)
+    {
+        return lifetime != 0 && System.nanoTime() - session.born >= lifetime;
+    }
+
+    /**
+     * Start session: start GDB, then load the executable.
+     *
+     * @return new session
+     * @throws Exception if start failure
+     */
+
+    private Session start () throws Exception
+    {
+        final var gdb = factory.call();
+        try
+        {
+            final var batch = gdb.batch();
+            batch.add(gdb.gdbSet("confirm", "off").deadline(timeout, TimeUnit.NANOSECONDS));
+            if (executable != null) batch.add(gdb.fileExecAndSymbols(executable).deadline(timeout, TimeUnit.NANOSECONDS));
+            for (var record : batch.submit().get())
+                if (record.content().type().equals("error")) throw Gdb.failure(record);
+        }
+        catch (ExecutionException e)
+        {
+            gdb.close();
+            throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+        }
+        catch (Exception e)
+        {
+            gdb.close();
+            throw e;
+        }
+
+        final var session = new Session(gdb);
+        if (lifetime != 0) GdbTimer.shared().schedule(session.timeout, lifetime, TimeUnit.NANOSECONDS);
+        gdb.onExit().thenRun(() -> executor.execute(() -> retire(session)));
+        return session;
+    }
+
+    /**
+     * Reset session: kill the inferior, if any, and delete every breakpoint.
+     *
+     * <p>Also a health check: sessions that fail to reset in time are unhealthy.</p>
+     *
+     * @param session  session
+     * @return         true if reset, false if unhealthy
+     */
+
+    private boolean reset (Session session)
+    {
+        final var gdb = session.gdb;
+        try
+        {
+            final var batch = gdb.batch();
+            batch.add(gdb.interpreterExec("console", "kill").deadline(timeout, TimeUnit.NANOSECONDS));
+            batch.add(gdb.breakDelete().deadline(timeout, TimeUnit.NANOSECONDS));
+            // bounded even if writing the batch stalls
+            final var records = batch.submit().get(timeout, TimeUnit.NANOSECONDS);
+            final GdbMiMessage.RecordMessage kill = records.get(0);
+            final GdbMiMessage.RecordMessage delete = records.get(1);
+            if (kill.content().type().equals("error") && ! notRunning.equals(kill.content().properties().get("msg", String.class)))
+                return false;
+            return delete.content().type().equals("done");
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        catch (IOException | ExecutionException | TimeoutException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Grow pool by one session, in the background.
+     */
+
+    private void grow ()
+    {
+        synchronized (this)
+        {
+            if (closed || live >= size) return;
+            ++live;
+        }
+
+        executor.execute(() -> {
+            try
+            {
+                offer(start());
+            }
+            catch (Exception e)
+            {
+                failed(e);
+            }
+        });
+    }
+
+    private void failed (Exception e)
+    {
+        ArrayList<CompletableFuture<Lease>> futures = null;
+        synchronized (this)
+        {
+            --live;
+            // with no session left to wait for, waiting would never end
+            if (live == 0 && ! waiting.isEmpty()) {
+                futures = new ArrayList<>(waiting);
+                waiting.clear();
+            }
+        }
+
+        if (futures == null) return;
+        final var cause = new IOException("gdb: pool failed to start session", e);
+        futures.forEach(future -> future.completeExceptionally(cause));
+    }
+
+    /**
+     * Grant session to the oldest waiting lease, or keep it idle.
+     *
+     * @param session  healthy session
+     */
+
+    private void offer (Session session)
+    {
+        while (true)
+        {
+            final CompletableFuture<Lease> future;
+            synchronized (this)
+            {
+                if (closed) {
+                    --live;
+                    future = null;
+                }
+                else if (waiting.isEmpty()) {
+                    idle.add(session);
+                    return;
+                }
+                else {
+                    future = waiting.poll();
+                }
+            }
+
+            if (future == null) {
+                session.close();
+                return;
+            }
+
+            // cancelled requests pass the session on
+            if (future.complete(new Lease(session))) return;
+        }
+    }
+
+    /**
+     * Return session: reset it and offer it again, or evict it.
+     *
+     * @param session   leased session
+     * @param handlers  handlers registered when leased
+     * @param discard   true to evict without reset
+     */
+
+    private void release (Session session, GdbSubscriptions handlers, boolean discard)
+    {
+        // before reset, so lease handlers see none of it
+        session.gdb.handlers(handlers);
+        executor.execute(() -> {
+            if (! discard && healthy(session) && reset(session) && healthy(session)) offer(session);
+            else evict(session);
+        });
+    }
+
+    /**
+     * Evict session, if idle, as when it expires or terminates.
+     *
+     * @param session  session
+     */
+
+    private void retire (Session session)
+    {
+        final boolean removed;
+        synchronized (this)
+        {
+            removed = idle.remove(session);
+        }
+        if (removed) evict(session);
+    }
+
+    private void evict (Session session)
+    {
+        synchronized (this)
+        {
+            --live;
+            ++evicted;
+        }
+        session.close();
+        grow();
+    }
+
+    private static Executor executor ()
+    {
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 1, TimeUnit.SECONDS, new SynchronousQueue<>(), task -> {
+            final var thread = new Thread(task, "gdb-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private final class Session
+    {
+        final Gdb gdb;
+
+        final long born = System.nanoTime();
+
+        final GdbTimer.Timeout timeout = new GdbTimer.Timeout() {
+            @Override void expire () {
+                executor.execute(() -> retire(Session.this));
+            }
+        };
+
+        Session (Gdb gdb)
+        {
+            this.gdb = gdb;
+        }
+
+        void close ()
+        {
+            GdbTimer.shared().cancel(timeout);
+            gdb.close();
+        }
+    }
+
+    /**
+     * GDB session lease.
+     *
+     * <p>Closing the lease returns the session to the pool, unregistering handlers registered since leased.</p>
+     */
+
+    public final class Lease implements AutoCloseable
+    {
+        private final Session session;
+
+        private final GdbSubscriptions handlers;
+
+        private final AtomicBoolean returned = new AtomicBoolean();
+
+        Lease (Session session)
+        {
+            this.session = session;
+            this.handlers = session.gdb.handlers();
+        }
+
+        /**
+         * Property: leased GDB instance.
+         *
+         * @return value
+         * @throws IllegalStateException if returned
+         */
+
+        public Gdb gdb ()
+        {
+            if (returned.get()) throw new IllegalStateException("lease returned");
+            return session.gdb;
+        }
+
+        /**
+         * Return session to the pool, to be reset and leased again.
+         */
+
+        @Override
+        public void close ()
+        {
+            if (returned.compareAndSet(false, true)) release(session, handlers, false);
+        }
+
+        /**
+         * Return session to the pool, to be evicted and replaced, as when left in a state reset cannot undo.
+         */
+
+        public void discard ()
+        {
+            if (returned.compareAndSet(false, true)) release(session, handlers, true);
+        }
+    }
+
+    /**
+     * GDB session pool builder.
+     */
+
+    public static final class Builder
+    {
+        private final Callable<Gdb> factory;
+
+        private String executable = null;
+
+        private int size = 1;
+
+        private long lifetime = 0;
+
+        private long timeout = TimeUnit.MINUTES.toNanos(1);
+
+        Builder (Callable<Gdb> factory)
+        {
+            this.factory = factory;
+        }
+
+        /**
+         * Property: executable, loaded with its symbols into every session.
+         *
+         * @param value  path, or null for none
+         * @return       this builder
+         */
+
+        public Builder executable (String value)
+        {
+            executable = value;
+            return this;
+        }
+
+        /**
+         * Property: count of sessions kept.
+         *
+         * @param value  count
+         * @return       this builder
+         */
+
+        public Builder size (int value)
+        {
+            if (value < 1) throw new IllegalArgumentException("size must be positive");
+            size = value;
+            return this;
+        }
+
+        /**
+         * Property: maximum session lifetime; older sessions are evicted when idle or returned.
+         *
+         * @param time  time limit, or zero for none
+         * @param unit  time unit
+         * @return      this builder
+         */
+
+        public Builder lifetime (long time, TimeUnit unit)
+        {
+            if (time < 0) throw new IllegalArgumentException("lifetime must not be negative");
+            lifetime = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Property: deadline for starting and resetting a session.
+         *
+         * @param time  time limit
+         * @param unit  time unit
+         * @return      this builder
+         */
+
+        public Builder timeout (long time, TimeUnit unit)
+        {
+            if (time <= 0) throw new IllegalArgumentException("timeout must be positive");
+            timeout = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Start new pool, waiting for every session to start.
+         *
+         * @return new pool
+         * @throws IOException if some session fails to start
+         */
+
+        public GdbPool start () throws IOException
+        {
+            final var pool = new GdbPool(factory, executable, size, lifetime, timeout);
+            final var futures = new ArrayList<CompletableFuture<Session>>(size);
+            for (int i = 0; i != size; ++i)
+            {
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    try { return pool.start(); }
+                    catch (Exception e) { throw new CompletionException(e); }
+                }, pool.executor));
+            }
+
+            final var sessions = new ArrayList<Session>(size);
+            Throwable failure = null;
+            for (var future : futures)
+            {
+                try
+                {
+                    sessions.add(future.join());
+                }
+                catch (CompletionException e)
+                {
+                    failure = e.getCause();
+                }
+            }
+
+            synchronized (pool)
+            {
+                pool.live = sessions.size();
+            }
+            sessions.forEach(pool::offer);
+            if (failure != null) {
+                pool.close();
+                throw new IOException("gdb: pool failed to start session", failure);
+            }
+            return pool;
+        }
+    }
+}
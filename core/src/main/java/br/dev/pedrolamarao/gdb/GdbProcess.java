@@ -1,14 +1,17 @@
 package br.dev.pedrolamarao.gdb;
 
+import br.dev.pedrolamarao.gdb.mi.GdbMiIncrementalReader;
 import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
 import br.dev.pedrolamarao.gdb.mi.GdbMiReader;
 import br.dev.pedrolamarao.gdb.mi.GdbMiWriter;
 import lombok.var;
 
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -21,13 +24,15 @@ public class GdbProcess
 
     final GdbMiReader reader;
 
-    final Writer writer;
+    final GdbWriterStage writer;
+
+    boolean lazy = false;
 
     GdbProcess (Process process)
     {
         this.process = process;
         this.reader = GdbMiReader.fromStream(process.getInputStream(), StandardCharsets.UTF_8);
-        this.writer = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8);
+        this.writer = new GdbWriterStage(process.getOutputStream());
     }
 
     public static Builder builder ()
@@ -56,21 +61,99 @@ public class GdbProcess
         return reader.read();
     }
 
+    /**
+     * Incremental reader for this process output, configured as this process reader.
+     *
+     * @return new reader
+     */
+
+    GdbMiIncrementalReader incremental ()
+    {
+        return GdbMiReader.incremental().lazy(lazy);
+    }
+
     public boolean waitFor (long time, TimeUnit unit) throws InterruptedException
     {
         return process.waitFor(time, unit);
     }
 
+    /**
+     * Write message.
+     *
+     * <p>Safe for concurrent use: messages from concurrent writers are written whole, in some order,
+     * possibly together in a single write.</p>
+     *
+     * @param message      message
+     * @return             this process
+     * @throws IOException if communication failure
+     */
+
     public GdbProcess write ( GdbMiWriter message ) throws IOException
     {
-        message.write(this.writer).flush();
-        return this;
+        final var written = new CompletableFuture<Void>();
+        writer.submit(new GdbWriterStage.Submission(message, written) {
+            @Override void written () { written.complete(null); }
+        });
+        return await(written);
+    }
+
+    /**
+     * Write messages with a single write.
+     *
+     * @param messages     messages
+     * @return             this process
+     * @throws IOException if communication failure
+     */
+
+    public GdbProcess write ( Iterable<? extends GdbMiWriter> messages ) throws IOException
+    {
+        final var list = new ArrayList<GdbMiWriter>();
+        messages.forEach(list::add);
+        final var written = new CompletableFuture<Void>();
+        writer.submit(new GdbWriterStage.BatchSubmission(list, Collections.singletonList(written)) {
+            @Override void written () { written.complete(null); }
+        });
+        return await(written);
+    }
+
+    private GdbProcess await (CompletableFuture<Void> written) throws IOException
+    {
+        // completed by whichever thread drained the writer stage, normally this one
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    written.get();
+                    return this;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    final var cause = e.getCause();
+                    if (cause instanceof IOException) throw (IOException) cause;
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    throw new IOException(cause);
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
     }
 
     public static class Builder
     {
         private String command = "gdb";
 
+        private boolean lazy = false;
+
         Builder () { }
 
         public Builder command (String path)
@@ -79,12 +162,21 @@ public class GdbProcess
             return this;
         }
 
+        public Builder lazy (boolean value)
+        {
+            lazy = value;
+            return this;
+        }
+
         public GdbProcess start () throws IOException
         {
             final var builder = new ProcessBuilder();
             builder.command(command, "--interpreter=mi");
             final var process = builder.start();
-            return new GdbProcess(process);
+            final var gdb = new GdbProcess(process);
+            gdb.reader.lazy(lazy);
+            gdb.lazy = lazy;
+            return gdb;
         }
     }
 }
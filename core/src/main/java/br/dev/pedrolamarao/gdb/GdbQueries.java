@@ -0,0 +1,56 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GDB query cache.
+ *
+ * <p>Read-only queries, such as stack frames, locals and registers, are keyed by their command without context,
+ * and claimed before they are issued, so concurrent identical queries issue one command.
+ * Identical queries share one result future until the next execution transition, {@code *running} or {@code *stopped},
+ * or the next command that is not a query, which may change what queries report;
+ * so a stop costs one round trip per distinct query, however many handlers ask.
+ * Queries that fail are forgotten at once.</p>
+ */
+
+final class GdbQueries
+{
+    private final HashMap<Object, CompletableFuture<GdbMiMessage.RecordMessage>> futures = new HashMap<>();
+
+    /**
+     * Claim query: share its result future, unless some other is shared already.
+     *
+     * @param key     query key
+     * @param future  result future
+     * @return        shared result future, or null if claimed
+     */
+
+    synchronized CompletableFuture<GdbMiMessage.RecordMessage> putIfAbsent (Object key, CompletableFuture<GdbMiMessage.RecordMessage> future)
+    {
+        return futures.putIfAbsent(key, future);
+    }
+
+    /**
+     * Forget result future for query.
+     *
+     * @param key     query key
+     * @param future  result future
+     */
+
+    synchronized void remove (Object key, CompletableFuture<GdbMiMessage.RecordMessage> future)
+    {
+        futures.remove(key, future);
+    }
+
+    /**
+     * Forget every result future.
+     */
+
+    synchronized void invalidate ()
+    {
+        if (! futures.isEmpty()) futures.clear();
+    }
+}
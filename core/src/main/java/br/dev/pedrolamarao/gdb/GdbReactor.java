@@ -0,0 +1,367 @@
+package br.dev.pedrolamarao.gdb;
+
+import lombok.var;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * GDB shared I/O reactor.
+ *
+ * <p>Multiplexes the output of many GDB instances onto a small pool of reader threads,
+ * or onto one virtual thread per instance on JDKs with virtual threads.
+ * Each instance is served by exactly one thread, so messages of each instance are handled in order;
+ * handlers run on that thread, as they would on the instance's own reader thread.</p>
+ *
+ * <p>Pool threads poll their instances for available output and, when all are idle,
+ * spin briefly, then park for exponentially longer up to the idle time limit;
+ * an idle instance may wait up to that limit for its next message to be noticed.
+ * Idle pool threads are not free: each wakes up to once per idle time limit, about a thousand times per second
+ * with the default limit, and checks every instance it serves;
+ * trade latency for CPU with {@link Builder#idle} and {@link Builder#spins}.</p>
+ *
+ * <p>Pool threads notice the end of an instance when its process terminates;
+ * instances whose process closes its output but keeps running are read until the reactor closes.</p>
+ */
+
+public final class GdbReactor implements AutoCloseable
+{
+    private final Worker[] workers;
+
+    private final ExecutorService executor;
+
+    private final AtomicInteger sessions = new AtomicInteger();
+
+    private volatile boolean closed = false;
+
+    GdbReactor (int threads, long idle, int spins, ExecutorService executor)
+    {
+        this.executor = executor;
+        this.workers = new Worker[executor == null ? threads : 0];
+        for (int i = 0; i != workers.length; ++i)
+        {
+            final var worker = new Worker(idle, spins);
+            final var thread = new Thread(worker, "gdb-reactor-" + i);
+            thread.setDaemon(true);
+            worker.thread = thread;
+            workers[i] = worker;
+            thread.start();
+        }
+    }
+
+    /**
+     * GDB reactor builder.
+     *
+     * @return new builder
+     */
+
+    public static Builder builder ()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Close reactor.
+     *
+     * <p>Pool threads stop reading immediately, and destroy the processes of instances still being read,
+     * since nothing would read their output again; their instances terminate.
+     * Virtual threads stop when their instances terminate.</p>
+     */
+
+    @Override
+    public void close ()
+    {
+        closed = true;
+        for (var worker : workers) LockSupport.unpark(worker.thread);
+        if (executor != null) executor.shutdown();
+    }
+
+    /**
+     * Property: count of instances being read.
+     *
+     * @return value
+     */
+
+    public int sessions ()
+    {
+        return sessions.get();
+    }
+
+    /**
+     * Read process output until it terminates.
+     *
+     * @param process  process
+     * @param input    output consumer
+     * @param end      end consumer: null at end-of-stream, or failure
+     */
+
+    void register (GdbProcess process, Consumer<ByteBuffer> input, Consumer<Throwable> end)
+    {
+        if (closed) throw new IllegalStateException("reactor is closed");
+
+        final var session = new Session(process.process, input, end);
+        sessions.incrementAndGet();
+
+        if (executor != null) {
+            executor.execute(session::run);
+            return;
+        }
+
+        var worker = workers[0];
+        for (var candidate : workers) {
+            if (candidate.sessions.size() < worker.sessions.size()) worker = candidate;
+        }
+        worker.sessions.add(session);
+        LockSupport.unpark(worker.thread);
+    }
+
+    private final class Worker implements Runnable
+    {
+        final CopyOnWriteArrayList<Session> sessions = new CopyOnWriteArrayList<>();
+
+        final byte[] buffer = new byte[8192];
+
+        final long idle;
+
+        final int spins;
+
+        Thread thread;
+
+        Worker (long idle, int spins)
+        {
+            this.idle = idle;
+            this.spins = spins;
+        }
+
+        @Override
+        public void run ()
+        {
+            int idleCount = 0;
+            while (! closed)
+            {
+                boolean progress = false;
+                for (var session : sessions)
+                {
+                    Throwable failure = null;
+                    try
+                    {
+                        progress |= session.poll(buffer);
+                    }
+                    catch (Throwable e)
+                    {
+                        session.done = true;
+                        failure = e;
+                    }
+                    if (session.done) {
+                        sessions.remove(session);
+                        GdbReactor.this.sessions.decrementAndGet();
+                        session.end(failure);
+                    }
+                }
+
+                if (progress) {
+                    idleCount = 0;
+                }
+                else if (++idleCount <= spins) {
+                    Thread.yield();
+                }
+                else {
+                    LockSupport.parkNanos(this, Math.min(idle, 1000L << Math.min(idleCount - spins - 1, 20)));
+                }
+            }
+
+            for (var session : sessions)
+            {
+                sessions.remove(session);
+                GdbReactor.this.sessions.decrementAndGet();
+                session.process.destroyForcibly();
+                session.end(new IOException("gdb: reactor closed"));
+            }
+        }
+    }
+
+    private final class Session
+    {
+        final Process process;
+
+        final InputStream stream;
+
+        final Consumer<ByteBuffer> input;
+
+        final Consumer<Throwable> end;
+
+        boolean done = false;
+
+        Session (Process process, Consumer<ByteBuffer> input, Consumer<Throwable> end)
+        {
+            this.process = process;
+            this.stream = process.getInputStream();
+            this.input = input;
+            this.end = end;
+        }
+
+        void end (Throwable failure)
+        {
+            try
+            {
+                end.accept(failure);
+            }
+            catch (Throwable e)
+            {
+                GdbThreads.uncaught(e);
+            }
+        }
+
+        /**
+         * Read available output without blocking.
+         *
+         * @param buffer  read buffer
+         * @return        true if any progress
+         * @throws IOException if communication failure
+         */
+
+        boolean poll (byte[] buffer) throws IOException
+        {
+            if (read(buffer)) return true;
+            if (process.isAlive()) return false;
+
+            // terminated: output written before exit is still available
+
+            while (read(buffer)) { }
+            done = true;
+            return true;
+        }
+
+        private boolean read (byte[] buffer) throws IOException
+        {
+            final var available = stream.available();
+            if (available <= 0) return false;
+            final var count = stream.read(buffer, 0, Math.min(available, buffer.length));
+            if (count <= 0) return false;
+            input.accept(ByteBuffer.wrap(buffer, 0, count));
+            return true;
+        }
+
+        /**
+         * Read output until end-of-stream, blocking.
+         */
+
+        void run ()
+        {
+            final var buffer = new byte[8192];
+            Throwable failure = null;
+            try
+            {
+                while (true)
+                {
+                    final var count = stream.read(buffer);
+                    if (count == -1) break;
+                    input.accept(ByteBuffer.wrap(buffer, 0, count));
+                }
+            }
+            catch (Throwable e)
+            {
+                failure = e;
+            }
+            finally
+            {
+                sessions.decrementAndGet();
+            }
+            end(failure);
+        }
+    }
+
+    /**
+     * GDB reactor builder.
+     */
+
+    public static final class Builder
+    {
+        private int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+
+        private long idle = TimeUnit.MILLISECONDS.toNanos(1);
+
+        private int spins = 16;
+
+        private boolean virtual = false;
+
+        Builder () { }
+
+        /**
+         * Property: count of pool reader threads.
+         *
+         * @param value  count
+         * @return       this builder
+         */
+
+        public Builder threads (int value)
+        {
+            if (value < 1) throw new IllegalArgumentException("threads must be positive: " + value);
+            threads = value;
+            return this;
+        }
+
+        /**
+         * Property: longest idle pool thread park.
+         *
+         * @param time  time limit
+         * @param unit  time unit
+         * @return      this builder
+         */
+
+        public Builder idle (long time, TimeUnit unit)
+        {
+            if (time < 1) throw new IllegalArgumentException("idle time must be positive: " + time);
+            idle = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Property: count of idle pool thread spins, yielding, before parking.
+         *
+         * @param value  count, or zero to park at once
+         * @return       this builder
+         */
+
+        public Builder spins (int value)
+        {
+            if (value < 0) throw new IllegalArgumentException("spins must not be negative: " + value);
+            spins = value;
+            return this;
+        }
+
+        /**
+         * Property: read on virtual threads.
+         *
+         * <p>On JDKs without virtual threads, the reactor falls back to the reader thread pool.</p>
+         *
+         * @param value  true to read on virtual threads
+         * @return       this builder
+         */
+
+        public Builder virtual (boolean value)
+        {
+            virtual = value;
+            return this;
+        }
+
+        /**
+         * Start new reactor.
+         *
+         * @return new reactor
+         */
+
+        public GdbReactor start ()
+        {
+            final ExecutorService executor = virtual ? GdbThreads.virtualExecutor().orElse(null) : null;
+            return new GdbReactor(threads, idle, spins, executor);
+        }
+    }
+}
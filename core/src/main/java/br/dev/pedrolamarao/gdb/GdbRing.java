@@ -0,0 +1,371 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+import br.dev.pedrolamarao.gdb.mi.GdbMiType;
+import lombok.var;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GDB event ring.
+ *
+ * <p>Single-producer ring buffer of preallocated, reusable event slots, between a reader and its consumers.
+ * Registered as a handler, the ring publishes each message into the next slot;
+ * each consumer runs on its own thread, reading slots by sequence number in batches,
+ * waiting for new events with its own {@link Wait wait strategy}.
+ * The producer never overwrites a slot some consumer has not read, so slow consumers apply backpressure to the reader.</p>
+ *
+ * <p>Publishing and consuming allocate nothing: no queue nodes, wrappers or locks;
+ * the only allocation per event is the message itself, see {@link Gdb.Builder#lazy(boolean)}.</p>
+ *
+ * <p>A ring has exactly one producer thread: register it with one instance only.</p>
+ */
+
+public final class GdbRing implements GdbHandler, AutoCloseable
+{
+    /**
+     * Consumer wait strategy.
+     */
+
+    public enum Wait
+    {
+        /**
+         * Busy spin: lowest latency, burns one core per consumer.
+         */
+
+        SPIN,
+
+        /**
+         * Spin yielding to other threads.
+         */
+
+        YIELD,
+
+        /**
+         * Park until the producer publishes: lowest CPU usage, highest latency.
+         */
+
+        PARK,
+    }
+
+    /**
+     * Ring event handler.
+     */
+
+    public interface Handler
+    {
+        /**
+         * Handle event.
+         *
+         * <p>The event slot is reused after this method returns: copy what must be retained.</p>
+         *
+         * @param event     event
+         * @param sequence  event sequence number
+         * @param last      true if last event of this batch
+         */
+
+        void handle (Event event, long sequence, boolean last);
+    }
+
+    /**
+     * Ring event slot.
+     */
+
+    public static final class Event
+    {
+        Gdb gdb;
+
+        GdbMiMessage message;
+
+        Event () { }
+
+        /**
+         * Property: source instance.
+         *
+         * @return value
+         */
+
+        public Gdb gdb () { return gdb; }
+
+        /**
+         * Property: message.
+         *
+         * @return value
+         */
+
+        public GdbMiMessage message () { return message; }
+
+        /**
+         * Property: message type.
+         *
+         * @return value
+         */
+
+        public GdbMiType type () { return message.type(); }
+    }
+
+    private static final long idle = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Event[] slots;
+
+    private final int mask;
+
+    private final Sequence cursor = new Sequence();
+
+    private volatile Consumer[] consumers = new Consumer[0];
+
+    private volatile boolean closed = false;
+
+    // producer state
+
+    private Thread producer = null;
+
+    private long gate = -1;
+
+    GdbRing (int size)
+    {
+        this.slots = new Event[size];
+        this.mask = size - 1;
+        for (int i = 0; i != size; ++i) slots[i] = new Event();
+    }
+
+    /**
+     * GDB event ring builder.
+     *
+     * @return new builder
+     */
+
+    public static Builder builder ()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Property: ring size.
+     *
+     * @return count of slots
+     */
+
+    public int size ()
+    {
+        return slots.length;
+    }
+
+    /**
+     * Property: sequence number of the last published event, or -1.
+     *
+     * @return value
+     */
+
+    public long cursor ()
+    {
+        return cursor.value;
+    }
+
+    /**
+     * Start consumer.
+     *
+     * <p>The consumer receives events published after this method returns, on a new daemon thread.</p>
+     *
+     * @param handler  event handler
+     * @param wait     wait strategy
+     */
+
+    public synchronized void consume (Handler handler, Wait wait)
+    {
+        if (closed) throw new IllegalStateException("ring is closed");
+        final var consumer = new Consumer(Objects.requireNonNull(handler, "handler"), Objects.requireNonNull(wait, "wait"));
+        consumer.sequence.value = cursor.value;
+        final var thread = new Thread(consumer, "gdb-ring-" + consumers.length);
+        thread.setDaemon(true);
+        consumer.thread = thread;
+        final var list = Arrays.copyOf(consumers, consumers.length + 1);
+        list[consumers.length] = consumer;
+        consumers = list;
+        thread.start();
+    }
+
+    /**
+     * Close ring: consumers stop, and the producer stops waiting for them.
+     */
+
+    @Override
+    public void close ()
+    {
+        closed = true;
+        for (var consumer : consumers) LockSupport.unpark(consumer.thread);
+    }
+
+    /**
+     * Publish message into next slot.
+     *
+     * @param gdb      GDB instance
+     * @param message  message
+     */
+
+    @Override
+    public void handle (Gdb gdb, GdbMiMessage message)
+    {
+        if (producer != Thread.currentThread())
+        {
+            if (producer != null) throw new IllegalStateException("ring has another producer");
+            producer = Thread.currentThread();
+        }
+
+        final var sequence = cursor.value + 1;
+        final var wrap = sequence - slots.length;
+        if (wrap > gate) gate = await(wrap);
+        if (closed) return;
+
+        final var event = slots[(int) sequence & mask];
+        event.gdb = gdb;
+        event.message = message;
+        cursor.value = sequence;
+
+        for (var consumer : consumers) {
+            if (consumer.waiting) LockSupport.unpark(consumer.thread);
+        }
+    }
+
+    /**
+     * Wait until every consumer has read the given sequence.
+     *
+     * @return minimum consumer sequence
+     */
+
+    private long await (long wrap)
+    {
+        long backoff = 1;
+        while (true)
+        {
+            var minimum = cursor.value;
+            for (var consumer : consumers) minimum = Math.min(minimum, consumer.sequence.value);
+            if (minimum >= wrap || closed) return minimum;
+            if (backoff < 64) {
+                Thread.yield();
+                ++backoff;
+            }
+            else {
+                LockSupport.parkNanos(idle);
+            }
+        }
+    }
+
+    private final class Consumer implements Runnable
+    {
+        final Sequence sequence = new Sequence();
+
+        final Handler handler;
+
+        final Wait wait;
+
+        Thread thread;
+
+        volatile boolean waiting = false;
+
+        Consumer (Handler handler, Wait wait)
+        {
+            this.handler = handler;
+            this.wait = wait;
+        }
+
+        @Override
+        public void run ()
+        {
+            var next = sequence.value + 1;
+            while (! closed)
+            {
+                final var available = cursor.value;
+                if (available < next) {
+                    idle(next);
+                    continue;
+                }
+                for (; next <= available; ++next)
+                {
+                    try
+                    {
+                        handler.handle(slots[(int) next & mask], next, next == available);
+                    }
+                    catch (Throwable e)
+                    {
+                        GdbThreads.uncaught(e);
+                    }
+                }
+                sequence.value = available;
+            }
+        }
+
+        private void idle (long next)
+        {
+            switch (wait)
+            {
+            case SPIN:
+                break;
+            case YIELD:
+                Thread.yield();
+                break;
+            case PARK:
+                waiting = true;
+                if (cursor.value < next && ! closed) LockSupport.parkNanos(idle);
+                waiting = false;
+                break;
+            }
+        }
+    }
+
+    // sequence padded against false sharing between producer and consumers
+
+    static class SequenceLeft
+    {
+        long p1, p2, p3, p4, p5, p6, p7;
+    }
+
+    static class SequenceValue extends SequenceLeft
+    {
+        volatile long value = -1;
+    }
+
+    static final class Sequence extends SequenceValue
+    {
+        long p9, p10, p11, p12, p13, p14, p15;
+    }
+
+    /**
+     * GDB event ring builder.
+     */
+
+    public static final class Builder
+    {
+        private int size = 1024;
+
+        Builder () { }
+
+        /**
+         * Property: ring size.
+         *
+         * @param value  count of slots, a power of two
+         * @return       this builder
+         */
+
+        public Builder size (int value)
+        {
+            if (value < 1 || Integer.bitCount(value) != 1) throw new IllegalArgumentException("size must be a power of two");
+            size = value;
+            return this;
+        }
+
+        /**
+         * Build ring.
+         *
+         * @return new ring
+         */
+
+        public GdbRing build ()
+        {
+            return new GdbRing(size);
+        }
+    }
+}
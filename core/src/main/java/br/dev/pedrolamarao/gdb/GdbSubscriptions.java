@@ -0,0 +1,187 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+import br.dev.pedrolamarao.gdb.mi.GdbMiType;
+import lombok.var;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+
+/**
+ * GDB handler subscriptions.
+ *
+ * <p>Handlers subscribe to every message, to messages of some type,
+ * or to records of some type and class, such as {@code *stopped}.
+ * Subscriptions are compiled into a dispatch table, rebuilt on every subscription and replaced atomically,
+ * so routing a message costs one array index and at most one hash lookup, and reaches only interested handlers,
+ * in subscription order.</p>
+ */
+
+final class GdbSubscriptions
+{
+    private static final GdbHandler[] none = new GdbHandler[0];
+
+    private static final GdbMiType[] types = GdbMiType.values();
+
+    private final ArrayList<Subscription> subscriptions = new ArrayList<>();
+
+    private volatile Route[] table = compile(subscriptions);
+
+    /**
+     * Copy subscriptions.
+     *
+     * @return new subscriptions, independent of these
+     */
+
+    synchronized GdbSubscriptions copy ()
+    {
+        final var copy = new GdbSubscriptions();
+        copy.subscriptions.addAll(subscriptions);
+        copy.table = table;
+        return copy;
+    }
+
+    /**
+     * Subscribe handler.
+     *
+     * @param type     message type, or null for any
+     * @param klass    record class, or null for any
+     * @param handler  handler
+     */
+
+    synchronized void add (GdbMiType type, String klass, GdbHandler handler)
+    {
+        add(subscriptions.size(), type, klass, handler);
+    }
+
+    /**
+     * Subscribe handler, ahead of every other handler.
+     *
+     * @param type     message type, or null for any
+     * @param klass    record class, or null for any
+     * @param handler  handler
+     */
+
+    synchronized void first (GdbMiType type, String klass, GdbHandler handler)
+    {
+        add(0, type, klass, handler);
+    }
+
+    /**
+     * Unsubscribe handler, from every subscription.
+     *
+     * @param handler  handler
+     * @return         true if subscribed
+     */
+
+    synchronized boolean remove (GdbHandler handler)
+    {
+        if (! subscriptions.removeIf(subscription -> subscription.handler == handler)) return false;
+        table = compile(subscriptions);
+        return true;
+    }
+
+    /**
+     * Unsubscribe every handler subscribed since copied, and resubscribe every handler unsubscribed since.
+     *
+     * @param saved  copy of these subscriptions
+     */
+
+    synchronized void restore (GdbSubscriptions saved)
+    {
+        synchronized (saved)
+        {
+            subscriptions.clear();
+            subscriptions.addAll(saved.subscriptions);
+            table = saved.table;
+        }
+    }
+
+    private void add (int index, GdbMiType type, String klass, GdbHandler handler)
+    {
+        if (type == GdbMiType.Result) throw new IllegalArgumentException("result records complete commands");
+        if (klass != null && type == null) throw new IllegalArgumentException("record class requires message type");
+        subscriptions.add(index, new Subscription(type, klass, handler));
+        table = compile(subscriptions);
+    }
+
+    /**
+     * Handlers subscribed to message.
+     *
+     * @param message  message
+     * @return         handlers, in subscription order
+     */
+
+    GdbHandler[] get (GdbMiMessage message)
+    {
+        final var route = table[message.type().ordinal()];
+        if (route.classes == null || ! (message instanceof GdbMiMessage.RecordMessage)) return route.handlers;
+        final var handlers = route.classes.get(((GdbMiMessage.RecordMessage) message).content().type());
+        return handlers != null ? handlers : route.handlers;
+    }
+
+    private static Route[] compile (ArrayList<Subscription> subscriptions)
+    {
+        final var table = new Route[types.length];
+        for (var type : types)
+        {
+            final var any = new ArrayList<GdbHandler>();
+            final var classes = new LinkedHashSet<String>();
+            for (var subscription : subscriptions)
+            {
+                if (subscription.type != null && subscription.type != type) continue;
+                if (subscription.klass == null) any.add(subscription.handler);
+                else classes.add(subscription.klass);
+            }
+
+            HashMap<String, GdbHandler[]> routes = null;
+            if (! classes.isEmpty())
+            {
+                routes = new HashMap<>();
+                for (var klass : classes)
+                {
+                    final var handlers = new ArrayList<GdbHandler>();
+                    for (var subscription : subscriptions)
+                    {
+                        if (subscription.type != null && subscription.type != type) continue;
+                        if (subscription.klass == null || subscription.klass.equals(klass)) handlers.add(subscription.handler);
+                    }
+                    routes.put(klass, handlers.toArray(none));
+                }
+            }
+
+            table[type.ordinal()] = new Route(any.toArray(none), routes);
+        }
+        return table;
+    }
+
+    private static final class Subscription
+    {
+        final GdbMiType type;
+
+        final String klass;
+
+        final GdbHandler handler;
+
+        Subscription (GdbMiType type, String klass, GdbHandler handler)
+        {
+            this.type = type;
+            this.klass = klass;
+            this.handler = handler;
+        }
+    }
+
+    private static final class Route
+    {
+        final GdbHandler[] handlers;
+
+        final HashMap<String, GdbHandler[]> classes;
+
+        Route (GdbHandler[] handlers, HashMap<String, GdbHandler[]> classes)
+        {
+            this.handlers = handlers;
+            this.classes = classes;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package br.dev.pedrolamarao.gdb;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * GDB thread utilities.
+ */
+
+final class GdbThreads
+{
+    private GdbThreads () { }
+
+    /**
+     * Virtual thread per task executor, if supported by this JDK.
+     *
+     * @return executor, or empty
+     */
+
+    static Optional<ExecutorService> virtualExecutor ()
+    {
+        try
+        {
+            final Object executor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            return Optional.of((ExecutorService) executor);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Report unexpected failure without terminating the current thread.
+     *
+     * @param e  failure
+     */
+
+    static void uncaught (Throwable e)
+    {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+}
@@ -0,0 +1,165 @@
+package br.dev.pedrolamarao.gdb;
+
+import lombok.var;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GDB timer.
+ *
+ * <p>Hashed timer wheel: timeouts hash by deadline into a fixed ring of buckets, one bucket per tick,
+ * each keeping the count of full turns left before expiry;
+ * scheduling and cancelling cost constant time whatever the count of pending timeouts.
+ * One daemon thread advances the wheel, expiring timeouts up to one tick late;
+ * expiry actions must be short, as they run on that thread.</p>
+ *
+ * <p>All instances share one wheel, started on first use.</p>
+ */
+
+final class GdbTimer implements Runnable
+{
+    private static final long tick = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final int buckets = 512;
+
+    private static volatile GdbTimer shared;
+
+    private final Timeout[] wheel = new Timeout[buckets];
+
+    private final long start = System.nanoTime();
+
+    private long ticks = 0;
+
+    private GdbTimer () { }
+
+    /**
+     * Shared timer.
+     *
+     * @return timer
+     */
+
+    static GdbTimer shared ()
+    {
+        var timer = shared;
+        if (timer != null) return timer;
+        synchronized (GdbTimer.class)
+        {
+            if (shared == null)
+            {
+                timer = new GdbTimer();
+                final var thread = new Thread(timer, "gdb-timer");
+                thread.setDaemon(true);
+                thread.start();
+                shared = timer;
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * Schedule timeout.
+     *
+     * @param timeout  timeout, not scheduled
+     * @param delay    delay
+     * @param unit     delay unit
+     */
+
+    synchronized void schedule (Timeout timeout, long delay, TimeUnit unit)
+    {
+        final var target = Math.max(ticks + 1, (System.nanoTime() - start + unit.toNanos(delay) + tick - 1) / tick);
+        timeout.rounds = (target - ticks - 1) / buckets;
+        final var index = (int) (target % buckets);
+        timeout.bucket = index;
+        timeout.next = wheel[index];
+        if (timeout.next != null) timeout.next.previous = timeout;
+        wheel[index] = timeout;
+    }
+
+    /**
+     * Cancel timeout, if scheduled.
+     *
+     * @param timeout  timeout
+     */
+
+    synchronized void cancel (Timeout timeout)
+    {
+        if (timeout.bucket < 0) return;
+        if (timeout.previous != null) timeout.previous.next = timeout.next;
+        else wheel[timeout.bucket] = timeout.next;
+        if (timeout.next != null) timeout.next.previous = timeout.previous;
+        timeout.bucket = -1;
+        timeout.next = null;
+        timeout.previous = null;
+    }
+
+    @Override
+    public void run ()
+    {
+        while (true)
+        {
+            final var deadline = start + (ticks + 1) * tick;
+            final var now = System.nanoTime();
+            if (now < deadline) {
+                LockSupport.parkNanos(deadline - now);
+                continue;
+            }
+
+            Timeout expired = null;
+            synchronized (this)
+            {
+                ++ticks;
+                var timeout = wheel[(int) (ticks % buckets)];
+                while (timeout != null)
+                {
+                    final var next = timeout.next;
+                    if (timeout.rounds == 0) {
+                        cancel(timeout);
+                        timeout.next = expired;
+                        expired = timeout;
+                    }
+                    else {
+                        --timeout.rounds;
+                    }
+                    timeout = next;
+                }
+            }
+
+            while (expired != null)
+            {
+                final var next = expired.next;
+                expired.next = null;
+                try
+                {
+                    expired.expire();
+                }
+                catch (Throwable e)
+                {
+                    GdbThreads.uncaught(e);
+                }
+                expired = next;
+            }
+        }
+    }
+
+    /**
+     * Timeout, intrusively linked into its bucket.
+     */
+
+    abstract static class Timeout
+    {
+        int bucket = -1;
+
+        long rounds;
+
+        Timeout next;
+
+        Timeout previous;
+
+        /**
+         * Expire; runs on the timer thread.
+         */
+
+        abstract void expire ();
+    }
+}
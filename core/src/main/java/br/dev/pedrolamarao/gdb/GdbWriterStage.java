@@ -0,0 +1,266 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiBuffer;
+import br.dev.pedrolamarao.gdb.mi.GdbMiWriter;
+import lombok.var;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * GDB writer stage.
+ *
+ * <p>Commands are submitted to a lock-free multi-producer queue, drained by one writer at a time:
+ * the submitting thread that finds the stage idle becomes the writer,
+ * encoding all queued commands into one buffer and writing them with a single flush (group commit).
+ * Submitters never wait for each other; write failures complete their futures exceptionally.</p>
+ *
+ * <p>A submitting thread writes at most one chunk, so submission costs at most one write whatever the load;
+ * if submissions are left, it hands the writer role over to the stage's writer thread,
+ * which keeps draining until none are left. The writer thread is started on demand, and stops when idle.</p>
+ *
+ * <p>Urgent submissions, such as interrupts, go through a priority lane:
+ * they are encoded ahead of every queued normal submission,
+ * and large backlogs are written in bounded chunks, so an urgent submission waits for at most one chunk.</p>
+ */
+
+final class GdbWriterStage
+{
+    private static final int chunk = 64 * 1024;
+
+    private final ConcurrentLinkedQueue<Submission> queue = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentLinkedQueue<Submission> urgent = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private final OutputStream output;
+
+    private final Executor writer = dedicated();
+
+    // writer state
+
+    private final GdbMiBuffer buffer = new GdbMiBuffer();
+
+    private final ArrayList<Submission> group = new ArrayList<>();
+
+    GdbWriterStage (OutputStream output)
+    {
+        this.output = output;
+    }
+
+    /**
+     * Submit command.
+     *
+     * @param message  command
+     * @param future   completed exceptionally if write fails
+     */
+
+    void submit (GdbMiWriter message, CompletableFuture<?> future)
+    {
+        submit(new Submission(message, future));
+    }
+
+    /**
+     * Submit command through the priority lane.
+     *
+     * @param message  command
+     * @param future   completed exceptionally if write fails
+     */
+
+    void submitUrgent (GdbMiWriter message, CompletableFuture<?> future)
+    {
+        urgent.offer(new Submission(message, future));
+        signal();
+    }
+
+    /**
+     * Submit commands, to be written together.
+     *
+     * @param messages  commands
+     * @param futures   completed exceptionally if write fails
+     */
+
+    void submit (List<? extends GdbMiWriter> messages, List<? extends CompletableFuture<?>> futures)
+    {
+        submit(new BatchSubmission(messages, futures));
+    }
+
+    void submit (Submission submission)
+    {
+        queue.offer(submission);
+        signal();
+    }
+
+    private void signal ()
+    {
+        if (pending.getAndIncrement() != 0) return;
+
+        // this thread is the writer, for one chunk
+        combine(1, 1);
+    }
+
+    /**
+     * Property: writer thread executor.
+     *
+     * <p>Threads that must not block on writes, such as readers, submit through it.</p>
+     *
+     * @return value
+     */
+
+    Executor executor ()
+    {
+        return writer;
+    }
+
+    /**
+     * Drain queues as the writer, then release the writer role; or hand it over to the writer thread.
+     *
+     * @param missed  count of signals to account for
+     * @param limit   count of chunks to write before handing over, or zero for no limit
+     */
+
+    private void combine (int missed, int limit)
+    {
+        int chunks = 0;
+        while (true)
+        {
+            if (limit != 0 && chunks++ == limit) {
+                final var signals = missed;
+                writer.execute(() -> combine(signals, 0));
+                return;
+            }
+            if (drain()) continue;
+            missed = pending.addAndGet(-missed);
+            if (missed == 0) return;
+        }
+    }
+
+    /**
+     * Write one chunk of queued submissions, urgent first.
+     *
+     * @return true if normal submissions were left queued
+     */
+
+    private boolean drain ()
+    {
+        buffer.reset();
+        boolean more = false;
+        while (true)
+        {
+            var submission = urgent.poll();
+            if (submission == null) {
+                if (buffer.length() >= chunk) {
+                    more = ! queue.isEmpty();
+                    break;
+                }
+                submission = queue.poll();
+            }
+            if (submission == null) break;
+            final var length = buffer.length();
+            try
+            {
+                submission.encode(buffer);
+                group.add(submission);
+            }
+            catch (RuntimeException e)
+            {
+                buffer.truncate(length);
+                submission.failed(e);
+            }
+        }
+
+        if (group.isEmpty()) return more;
+
+        try
+        {
+            buffer.writeTo(output);
+            output.flush();
+            for (var submission : group) submission.written();
+        }
+        catch (IOException e)
+        {
+            for (var submission : group) submission.failed(e);
+        }
+        finally
+        {
+            group.clear();
+        }
+        return more;
+    }
+
+    private static Executor dedicated ()
+    {
+        final var executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            final var thread = new Thread(task, "gdb-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Command submission.
+     */
+
+    static class Submission
+    {
+        final GdbMiWriter message;
+
+        final CompletableFuture<?> future;
+
+        Submission (GdbMiWriter message, CompletableFuture<?> future)
+        {
+            this.message = message;
+            this.future = future;
+        }
+
+        void encode (GdbMiBuffer buffer)
+        {
+            message.write(buffer);
+        }
+
+        void written () { }
+
+        void failed (Throwable e)
+        {
+            future.completeExceptionally(e);
+        }
+    }
+
+    static class BatchSubmission extends Submission
+    {
+        final List<? extends GdbMiWriter> messages;
+
+        final List<? extends CompletableFuture<?>> futures;
+
+        BatchSubmission (List<? extends GdbMiWriter> messages, List<? extends CompletableFuture<?>> futures)
+        {
+            super(null, null);
+            this.messages = messages;
+            this.futures = futures;
+        }
+
+        @Override
+        void encode (GdbMiBuffer buffer)
+        {
+            for (var message : messages) message.write(buffer);
+        }
+
+        @Override
+        void failed (Throwable e)
+        {
+            for (var future : futures) future.completeExceptionally(e);
+        }
+    }
+}
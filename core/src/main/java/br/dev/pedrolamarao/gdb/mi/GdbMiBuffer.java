@@ -0,0 +1,265 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * GDB/MI command buffer.
+ *
+ * <p>Reusable byte buffer into which {@link GdbMiWriter} encodes commands as UTF-8,
+ * without intermediate strings; reset between commands to reuse its storage.</p>
+ */
+
+public final class GdbMiBuffer
+{
+    private byte[] array;
+
+    private int length = 0;
+
+    public GdbMiBuffer ()
+    {
+        this(256);
+    }
+
+    public GdbMiBuffer (int capacity)
+    {
+        this.array = new byte[capacity];
+    }
+
+    /**
+     * Encode ASCII constant, such as a command prefix.
+     *
+     * @param value  ASCII text
+     * @return       bytes
+     */
+
+    static byte[] ascii (String value)
+    {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Property: buffer contents; valid up to {@link #length()}.
+     *
+     * @return value
+     */
+
+    public byte[] array ()
+    {
+        return array;
+    }
+
+    /**
+     * Property: count of bytes written.
+     *
+     * @return value
+     */
+
+    public int length ()
+    {
+        return length;
+    }
+
+    /**
+     * Discard contents, keeping storage.
+     *
+     * @return this buffer
+     */
+
+    public GdbMiBuffer reset ()
+    {
+        length = 0;
+        return this;
+    }
+
+    /**
+     * Discard contents past length.
+     *
+     * @param value  length
+     * @return       this buffer
+     */
+
+    public GdbMiBuffer truncate (int value)
+    {
+        if (value < 0 || value > length) throw new IndexOutOfBoundsException("invalid length: " + value);
+        length = value;
+        return this;
+    }
+
+    /**
+     * Write contents to stream.
+     *
+     * @param stream       byte stream
+     * @throws IOException if communication failure
+     */
+
+    public void writeTo (OutputStream stream) throws IOException
+    {
+        stream.write(array, 0, length);
+    }
+
+    @Override
+    public String toString ()
+    {
+        return new String(array, 0, length, StandardCharsets.UTF_8);
+    }
+
+    // encoding
+
+    private void reserve (int size)
+    {
+        if (length + size > array.length)
+            array = Arrays.copyOf(array, Math.max(length + size, array.length * 2));
+    }
+
+    GdbMiBuffer append (byte value)
+    {
+        reserve(1);
+        array[length++] = value;
+        return this;
+    }
+
+    GdbMiBuffer append (byte[] value)
+    {
+        reserve(value.length);
+        System.arraycopy(value, 0, array, length, value.length);
+        length += value.length;
+        return this;
+    }
+
+    /**
+     * Append non-negative decimal integer.
+     *
+     * @param value  value
+     * @return       this buffer
+     */
+
+    GdbMiBuffer append (int value)
+    {
+        int digits = 1;
+        for (int i = value; i >= 10; i /= 10) ++digits;
+        reserve(digits);
+        for (int i = length + digits - 1; i >= length; --i, value /= 10)
+            array[i] = (byte) ('0' + value % 10);
+        length += digits;
+        return this;
+    }
+
+    /**
+     * Append text verbatim, UTF-8 encoded.
+     *
+     * @param value  text
+     * @return       this buffer
+     */
+
+    GdbMiBuffer append (String value)
+    {
+        return append(value, 0, value.length());
+    }
+
+    private GdbMiBuffer append (String value, int from, int to)
+    {
+        reserve(to - from);
+        for (int i = from; i != to; ++i)
+        {
+            final char unit = value.charAt(i);
+            if (unit >= 0x80) return appendNonAscii(value, i, to);
+            array[length++] = (byte) unit;
+        }
+        return this;
+    }
+
+    private GdbMiBuffer appendNonAscii (String value, int from, int to)
+    {
+        // at most three bytes per UTF-16 unit
+        reserve((to - from) * 3);
+        for (int i = from; i != to; ++i)
+        {
+            final char unit = value.charAt(i);
+            if (unit < 0x80) {
+                array[length++] = (byte) unit;
+            }
+            else if (unit < 0x800) {
+                array[length++] = (byte) (0xC0 | (unit >> 6));
+                array[length++] = (byte) (0x80 | (unit & 0x3F));
+            }
+            else if (Character.isHighSurrogate(unit) && i + 1 != to && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int point = Character.toCodePoint(unit, value.charAt(++i));
+                array[length++] = (byte) (0xF0 | (point >> 18));
+                array[length++] = (byte) (0x80 | ((point >> 12) & 0x3F));
+                array[length++] = (byte) (0x80 | ((point >> 6) & 0x3F));
+                array[length++] = (byte) (0x80 | (point & 0x3F));
+            }
+            else if (Character.isSurrogate(unit)) {
+                array[length++] = '?';
+            }
+            else {
+                array[length++] = (byte) (0xE0 | (unit >> 12));
+                array[length++] = (byte) (0x80 | ((unit >> 6) & 0x3F));
+                array[length++] = (byte) (0x80 | (unit & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Append command argument: verbatim if plain, otherwise as a C string.
+     *
+     * @param value  argument
+     * @return       this buffer
+     */
+
+    GdbMiBuffer argument (String value)
+    {
+        if (value.isEmpty()) return quoted(value);
+        for (int i = 0, j = value.length(); i != j; ++i)
+        {
+            final char unit = value.charAt(i);
+            if (unit <= ' ' || unit == '"' || unit == '\\' || unit == '\'') return quoted(value);
+        }
+        return append(value);
+    }
+
+    /**
+     * Append C string: quoted, escaping quotes, backslashes and control characters.
+     *
+     * @param value  text
+     * @return       this buffer
+     */
+
+    GdbMiBuffer quoted (String value)
+    {
+        return append((byte) '"').escaped(value).append((byte) '"');
+    }
+
+    /**
+     * Append C string contents: escaping quotes, backslashes and control characters.
+     *
+     * @param value  text
+     * @return       this buffer
+     */
+
+    GdbMiBuffer escaped (String value)
+    {
+        int from = 0;
+        for (int i = 0, j = value.length(); i != j; ++i)
+        {
+            final char unit = value.charAt(i);
+            final byte escape;
+            switch (unit)
+            {
+            case '"':  escape = '"'; break;
+            case '\\': escape = '\\'; break;
+            case '\n': escape = 'n'; break;
+            case '\r': escape = 'r'; break;
+            case '\t': escape = 't'; break;
+            default:   continue;
+            }
+            append(value, from, i).append((byte) '\\').append(escape);
+            from = i + 1;
+        }
+        return append(value, from, value.length());
+    }
+}
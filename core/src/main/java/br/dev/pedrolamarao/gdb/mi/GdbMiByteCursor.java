@@ -0,0 +1,306 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import lombok.var;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * GDB/MI byte cursor.
+ *
+ * <p>Reads UTF-8 encoded GDB/MI messages from an input stream through a block buffer.
+ * Decoding is restricted to quoted strings containing non-ASCII bytes.</p>
+ *
+ * <p>In lazy mode, record properties are indexed by name only;
+ * values are retained as raw slices of the record line and decoded on first access.</p>
+ */
+
+final class GdbMiByteCursor extends GdbMiCursor
+{
+    private final InputStream stream;
+
+    private byte[] buffer;
+
+    private int position = 0;
+
+    private int limit = 0;
+
+    private byte[] scratch = new byte[256];
+
+    private byte[] raw = new byte[0];
+
+    private int rawLength = 0;
+
+    GdbMiByteCursor (InputStream stream, int capacity)
+    {
+        this.stream = stream;
+        this.buffer = new byte[capacity];
+    }
+
+    GdbMiByteCursor (InputStream stream)
+    {
+        this(stream, 8192);
+    }
+
+    GdbMiByteCursor (byte[] array, int start, int end)
+    {
+        this.stream = null;
+        this.buffer = array;
+        this.position = start;
+        this.limit = end;
+    }
+
+    /**
+     * Reset array cursor to new range.
+     *
+     * @param array  bytes
+     * @param start  range start
+     * @param end    range end
+     */
+
+    void reset (byte[] array, int start, int end)
+    {
+        this.buffer = array;
+        this.position = start;
+        this.limit = end;
+    }
+
+    /**
+     * Property: position of the next byte.
+     *
+     * @return value
+     */
+
+    int position ()
+    {
+        return position;
+    }
+
+    @Override
+    int next () throws IOException
+    {
+        if (position < limit) return buffer[position++] & 0xFF;
+        return fill();
+    }
+
+    private int fill () throws IOException
+    {
+        if (stream == null) return -1;
+        final var count = stream.read(buffer, 0, buffer.length);
+        if (count <= 0) return -1;
+        position = 1;
+        limit = count;
+        return buffer[0] & 0xFF;
+    }
+
+    @Override
+    int append (int length, int value)
+    {
+        if (length == scratch.length) {
+            final var larger = new byte[scratch.length * 2];
+            System.arraycopy(scratch, 0, larger, 0, length);
+            scratch = larger;
+        }
+        scratch[length] = (byte) value;
+        return length + 1;
+    }
+
+    @Override
+    String string (int length, boolean ascii)
+    {
+        return ascii ? ascii(scratch, 0, length) : new String(scratch, 0, length, UTF_8);
+    }
+
+    private static String ascii (byte[] array, int offset, int length)
+    {
+        final var symbol = GdbMiSymbols.lookup(array, offset, length);
+        return (symbol != null) ? symbol : new String(array, offset, length, ISO_8859_1);
+    }
+
+    @Override
+    String simpleString () throws IOException
+    {
+        // fast path: string ends inside the block buffer
+
+        final var start = position - 1;
+        if (start >= 0 && start < limit && (buffer[start] & 0xFF) == token)
+        {
+            int i = start;
+            while (i < limit && isSimple(buffer[i])) ++i;
+            if (i < limit) {
+                position = i + 1;
+                token = buffer[i] & 0xFF;
+                return ascii(buffer, start, i - start);
+            }
+        }
+
+        // slow path: string crosses block boundary
+
+        return super.simpleString();
+    }
+
+    @Override
+    String quotedString () throws IOException
+    {
+        // fast path: string ends inside the block buffer, without escape sequences
+
+        boolean ascii = true;
+        int i = position;
+        while (i < limit)
+        {
+            final var b = buffer[i];
+            if (b == '"' || b == '\\') break;
+            if (b < 0) ascii = false;
+            ++i;
+        }
+        if (i < limit && buffer[i] == '"')
+        {
+            final var string = ascii ? ascii(buffer, position, i - position) : new String(buffer, position, i - position, UTF_8);
+            position = i + 1;
+            token = next();
+            return string;
+        }
+
+        // slow path: string crosses block boundary or contains escape sequences
+
+        return super.quotedString();
+    }
+
+    @Override
+    GdbMiRecord record () throws IOException
+    {
+        if (! lazy) return super.record();
+
+        token = next();
+        final var name = simpleString();
+        final var properties = (token == ',') ? lazyProperties() : new GdbMiProperties();
+        return new GdbMiRecord(name, properties);
+    }
+
+    private GdbMiProperties lazyProperties () throws IOException
+    {
+        String[] names = new String[16];
+        int[] ends = new int[16];
+        int count = 0;
+
+        rawLength = 0;
+
+        do
+        {
+            token = next();
+            final var name = simpleString();
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-name");
+            if (token != '=') GdbMiReader.raiseUnexpected(token, '=');
+
+            token = next();
+            rawValue();
+
+            if (count == names.length) {
+                names = Arrays.copyOf(names, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            names[count] = name;
+            ends[count] = rawLength;
+            ++count;
+        }
+        while (token == ',');
+
+        final var line = Arrays.copyOf(raw, rawLength);
+        final var values = new Object[count];
+        for (int i = 0, start = 0; i != count; start = ends[i], ++i) {
+            values[i] = new GdbMiSlice(line, start, ends[i]);
+        }
+
+        return new GdbMiProperties(Arrays.copyOf(names, count), values);
+    }
+
+    /**
+     * Copy one raw property value into the raw line buffer, without decoding.
+     */
+
+    private void rawValue () throws IOException
+    {
+        if (isSimple(token))
+        {
+            do {
+                rawAppend(token);
+                token = next();
+            }
+            while (isSimple(token));
+            return;
+        }
+
+        int depth = 0;
+        do
+        {
+            switch (token)
+            {
+            case -1:
+                throw new RuntimeException("unexpected end-of-stream in property-value");
+            case '"':
+                rawQuoted();
+                break;
+            case '{':
+            case '[':
+                ++depth;
+                rawAppend(token);
+                break;
+            case '}':
+            case ']':
+                --depth;
+                rawAppend(token);
+                break;
+            default:
+                rawAppend(token);
+                break;
+            }
+            token = next();
+        }
+        while (depth > 0);
+    }
+
+    /**
+     * Copy one raw quoted string, including quotes, into the raw line buffer.
+     * On return the lookahead token is the closing quote.
+     */
+
+    private void rawQuoted () throws IOException
+    {
+        rawAppend('"');
+        while (true)
+        {
+            // bulk copy up to the next quote or escape inside the block buffer
+            int i = position;
+            while (i < limit && buffer[i] != '"' && buffer[i] != '\\') ++i;
+            rawAppend(buffer, position, i - position);
+            position = i;
+
+            token = next();
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in quoted-string");
+            rawAppend(token);
+            if (token == '"') return;
+            if (token == '\\') {
+                token = next();
+                if (token == -1) throw new RuntimeException("unexpected end-of-stream in escape-sequence");
+                rawAppend(token);
+            }
+        }
+    }
+
+    private void rawAppend (int value)
+    {
+        if (rawLength == raw.length) raw = Arrays.copyOf(raw, Math.max(256, raw.length * 2));
+        raw[rawLength++] = (byte) value;
+    }
+
+    private void rawAppend (byte[] source, int offset, int length)
+    {
+        if (rawLength + length > raw.length) raw = Arrays.copyOf(raw, Math.max(rawLength + length, raw.length * 2));
+        System.arraycopy(source, offset, raw, rawLength, length);
+        rawLength += length;
+    }
+}
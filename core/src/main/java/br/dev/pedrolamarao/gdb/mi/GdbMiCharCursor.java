@@ -0,0 +1,62 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * GDB/MI character cursor.
+ *
+ * <p>Reads GDB/MI messages from a text reader, one character at a time,
+ * never consuming characters beyond the end of the current message.</p>
+ */
+
+final class GdbMiCharCursor extends GdbMiCursor
+{
+    private Reader reader;
+
+    private char[] scratch = new char[256];
+
+    GdbMiCharCursor (Reader reader)
+    {
+        this.reader = reader;
+    }
+
+    /**
+     * Rebind cursor to reader, discarding lookahead and partial productions.
+     *
+     * @param value  reader, or null to release the current one
+     * @return       this cursor
+     */
+
+    GdbMiCharCursor reset (Reader value)
+    {
+        reader = value;
+        clear();
+        return this;
+    }
+
+    @Override
+    int next () throws IOException
+    {
+        return reader.read();
+    }
+
+    @Override
+    int append (int length, int value)
+    {
+        if (length == scratch.length) {
+            final char[] larger = new char[scratch.length * 2];
+            System.arraycopy(scratch, 0, larger, 0, length);
+            scratch = larger;
+        }
+        scratch[length] = (char) value;
+        return length + 1;
+    }
+
+    @Override
+    String string (int length, boolean ascii)
+    {
+        final String symbol = GdbMiSymbols.lookup(scratch, 0, length);
+        return (symbol != null) ? symbol : new String(scratch, 0, length);
+    }
+}
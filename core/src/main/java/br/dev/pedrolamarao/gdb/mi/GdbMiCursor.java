@@ -0,0 +1,441 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import lombok.var;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.function.IntFunction;
+
+/**
+ * GDB/MI cursor.
+ *
+ * <p>Recursive descent parser over a stream of code units.
+ * The lookahead token is kept in {@link #token}, so productions return their values directly.</p>
+ *
+ * <p>Cursors are stateful and not thread safe; reuse one cursor per stream.</p>
+ */
+
+abstract class GdbMiCursor
+{
+    /**
+     * Lookahead token: next code unit, or -1 if end-of-stream.
+     */
+
+    int token = -1;
+
+    /**
+     * Lazy record decoding: honored by cursors able to retain raw record lines.
+     */
+
+    boolean lazy = false;
+
+    /**
+     * Result visitors by context, or null.
+     */
+
+    IntFunction<GdbMiVisitor> visitors = null;
+
+    /**
+     * Property stack: tuples and lists under construction, innermost on top.
+     */
+
+    private String[] names = new String[16];
+
+    private Object[] values = new Object[16];
+
+    private int top = 0;
+
+    GdbMiCursor () { }
+
+    /**
+     * Advance to next code unit.
+     *
+     * @return             next code unit, or -1 if end-of-stream
+     * @throws IOException if communication failure
+     */
+
+    abstract int next () throws IOException;
+
+    /**
+     * Append code unit to scratch buffer.
+     *
+     * @param length  scratch buffer length
+     * @param value   code unit
+     * @return        new scratch buffer length
+     */
+
+    abstract int append (int length, int value);
+
+    /**
+     * Build string from scratch buffer, or look up its symbol.
+     *
+     * @param length  scratch buffer length
+     * @param ascii   true if and only if all code units are ASCII
+     * @return        new string
+     */
+
+    abstract String string (int length, boolean ascii);
+
+    /**
+     * Read next message.
+     *
+     * @return             message, or null if end-of-stream
+     * @throws IOException if communication failure
+     */
+
+    GdbMiMessage message () throws IOException
+    {
+        if (top != 0) pop(0);
+
+        token = next();
+        if (token == -1) return null;
+
+        final int context = context();
+
+        switch (token)
+        {
+            case '~':
+                return finishStringMessage(GdbMiType.Console, context);
+            case '@':
+                return finishStringMessage(GdbMiType.Target, context);
+            case '&':
+                return finishStringMessage(GdbMiType.Log, context);
+            case '*':
+                return finishRecordMessage(GdbMiType.Execute, context);
+            case '=':
+                return finishRecordMessage(GdbMiType.Notify, context);
+            case '+':
+                return finishRecordMessage(GdbMiType.Status, context);
+            case '^':
+                return finishRecordMessage(GdbMiType.Result, context);
+            case '(':
+                return finishPrompt();
+            default:
+                throw new RuntimeException("unexpected token in message-type: " + (char) token);
+        }
+    }
+
+    void skipLine () throws IOException
+    {
+        while (token != -1 && token != '\n') {
+            token = next();
+        }
+    }
+
+    /**
+     * Read message context.
+     *
+     * @return             context, or -1 if none
+     * @throws IOException if communication failure
+     */
+
+    int context () throws IOException
+    {
+        if (! isDigit(token)) return -1;
+
+        int value = 0;
+        do {
+            value = value * 10 + (token - '0');
+            token = next();
+        }
+        while (isDigit(token));
+
+        return value;
+    }
+
+    GdbMiMessage.StringMessage finishStringMessage (GdbMiType type, int context) throws IOException
+    {
+        final var content = string();
+
+        skipLine();
+
+        return new GdbMiMessage.StringMessage(content, context, type);
+    }
+
+    GdbMiMessage.RecordMessage finishRecordMessage (GdbMiType type, int context) throws IOException
+    {
+        final var visitor = (type == GdbMiType.Result && context >= 0 && visitors != null) ? visitors.apply(context) : null;
+        final var record = (visitor == null) ? record() : visit(visitor);
+
+        skipLine();
+
+        return new GdbMiMessage.RecordMessage(record, context, type);
+    }
+
+    GdbMiMessage.StringMessage finishPrompt () throws IOException
+    {
+        final var prompt = "(gdb)";
+
+        for (int i = 0, j = prompt.length(); i != j; ++i) {
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in prompt");
+            if (token != prompt.charAt(i)) GdbMiReader.raiseUnexpected(token, prompt.charAt(i));
+            token = next();
+        }
+
+        skipLine();
+
+        return GdbMiMessage.string(GdbMiType.Prompt, null, "");
+    }
+
+    GdbMiRecord record () throws IOException
+    {
+        token = next();
+        final var name = simpleString();
+        final var properties = (token == ',') ? properties() : new GdbMiProperties();
+        return new GdbMiRecord(name, properties);
+    }
+
+    /**
+     * Read record, pushing properties to visitor.
+     * Error records are read normally, to preserve their messages.
+     *
+     * @param visitor      visitor
+     * @return             record without properties
+     * @throws IOException if communication failure
+     */
+
+    GdbMiRecord visit (GdbMiVisitor visitor) throws IOException
+    {
+        token = next();
+        final var name = simpleString();
+        if (token != ',') return new GdbMiRecord(name, new GdbMiProperties());
+        if (name.equals("error")) return new GdbMiRecord(name, properties());
+        visitProperties(visitor);
+        return new GdbMiRecord(name, new GdbMiProperties());
+    }
+
+    boolean visitProperties (GdbMiVisitor visitor) throws IOException
+    {
+        boolean empty = true;
+
+        do
+        {
+            token = next();
+            if (token == '}' && empty) break;
+            final var name = simpleString();
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-name");
+            if (token != '=') GdbMiReader.raiseUnexpected(token, '=');
+
+            token = next();
+            if (! visitor.key(name)) return false;
+            if (! visitValue(visitor)) return false;
+            empty = false;
+        }
+        while (token == ',');
+
+        return true;
+    }
+
+    boolean visitValues (GdbMiVisitor visitor) throws IOException
+    {
+        boolean empty = true;
+
+        do
+        {
+            token = next();
+            if (token == ']' && empty) break;
+            if (isSimple(token)) {
+                final var name = simpleString();
+                if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-name");
+                if (token != '=') GdbMiReader.raiseUnexpected(token, '=');
+                token = next();
+                if (! visitor.key(name)) return false;
+            }
+            if (! visitValue(visitor)) return false;
+            empty = false;
+        }
+        while (token == ',');
+
+        return true;
+    }
+
+    boolean visitValue (GdbMiVisitor visitor) throws IOException
+    {
+        switch (token)
+        {
+        case -1:
+            throw new RuntimeException("unexpected end-of-stream in property-value");
+        case '{':
+            if (! visitor.tupleBegin()) return false;
+            if (! visitProperties(visitor)) return false;
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-value");
+            if (token != '}') GdbMiReader.raiseUnexpected(token, '}');
+            token = next();
+            return visitor.tupleEnd();
+        case '[':
+            if (! visitor.listBegin()) return false;
+            if (! visitValues(visitor)) return false;
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-value");
+            if (token != ']') GdbMiReader.raiseUnexpected(token, ']');
+            token = next();
+            return visitor.listEnd();
+        case '"':
+            return visitor.value(quotedString());
+        default:
+            return visitor.value(simpleString());
+        }
+    }
+
+    GdbMiProperties properties () throws IOException
+    {
+        final int base = top;
+
+        do
+        {
+            token = next();
+            if (token == '}' && top == base) break;
+            final var name = simpleString();
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-name");
+            if (token != '=') GdbMiReader.raiseUnexpected(token, '=');
+
+            token = next();
+            final var value = value();
+            push(name, value);
+        }
+        while (token == ',');
+
+        final var properties = new GdbMiProperties(Arrays.copyOfRange(names, base, top), Arrays.copyOfRange(values, base, top));
+        pop(base);
+        return properties;
+    }
+
+    GdbMiList values () throws IOException
+    {
+        final int base = top;
+
+        do
+        {
+            token = next();
+            if (token == ']' && top == base) break;
+            if (isSimple(token)) {
+                // result list: keep values, drop names
+                simpleString();
+                if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-name");
+                if (token != '=') GdbMiReader.raiseUnexpected(token, '=');
+                token = next();
+            }
+            final var value = value();
+            push(null, value);
+        }
+        while (token == ',');
+
+        final var list = new GdbMiList(Arrays.copyOfRange(values, base, top));
+        pop(base);
+        return list;
+    }
+
+    void push (String name, Object value)
+    {
+        if (top == names.length) {
+            names = Arrays.copyOf(names, top * 2);
+            values = Arrays.copyOf(values, top * 2);
+        }
+        names[top] = name;
+        values[top] = value;
+        ++top;
+    }
+
+    /**
+     * Discard lookahead and partial productions.
+     */
+
+    void clear ()
+    {
+        token = -1;
+        if (top != 0) pop(0);
+    }
+
+    void pop (int base)
+    {
+        // release references so finished messages are not retained by the cursor
+        Arrays.fill(names, base, top, null);
+        Arrays.fill(values, base, top, null);
+        top = base;
+    }
+
+    Object value () throws IOException
+    {
+        switch (token)
+        {
+        case -1:
+            throw new RuntimeException("unexpected end-of-stream in property-value");
+        case '{':
+            final var properties = properties();
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-value");
+            if (token != '}') GdbMiReader.raiseUnexpected(token, '}');
+            token = next();
+            return properties;
+        case '[':
+            final var list = values();
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-value");
+            if (token != ']') GdbMiReader.raiseUnexpected(token, ']');
+            token = next();
+            return list;
+        case '"':
+            return quotedString();
+        default:
+            return simpleString();
+        }
+    }
+
+    String string () throws IOException
+    {
+        token = next();
+        if (token == -1)
+            return "";
+        else if (token == '"')
+            return quotedString();
+        else
+            return simpleString();
+    }
+
+    String simpleString () throws IOException
+    {
+        int length = 0;
+        while (isSimple(token)) {
+            length = append(length, token);
+            token = next();
+        }
+        return string(length, true);
+    }
+
+    String quotedString () throws IOException
+    {
+        int length = 0;
+        boolean ascii = true;
+
+        token = next();
+        if (token == -1) throw new RuntimeException("unexpected end-of-string in quoted-string");
+
+        while (token != '"')
+        {
+            if (token == '\\') {
+                token = next();
+                if (token == -1) throw new RuntimeException("unexpected end-of-stream in escape-sequence");
+            }
+
+            if (token >= 0x80) ascii = false;
+            length = append(length, token);
+            token = next();
+            if (token == -1) throw new RuntimeException("unexpected end-of-stream in quoted-string");
+        }
+
+        token = next();
+
+        return string(length, ascii);
+    }
+
+    static boolean isDigit (int value)
+    {
+        return value >= '0' && value <= '9';
+    }
+
+    static boolean isSimple (int value)
+    {
+        return (value >= 'a' && value <= 'z')
+            || (value >= 'A' && value <= 'Z')
+            || (value >= '0' && value <= '9')
+            || value == '-'
+            || value == '_';
+    }
+}
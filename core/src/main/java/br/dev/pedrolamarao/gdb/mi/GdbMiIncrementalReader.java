@@ -0,0 +1,152 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import lombok.var;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * GDB/MI incremental message reader.
+ *
+ * <p>Accepts UTF-8 encoded GDB/MI output in arbitrary chunks, as delivered by non-blocking I/O,
+ * and emits every message completed by each chunk.
+ * Partial messages are kept between chunks; no thread ever blocks on the source.</p>
+ *
+ * <p>GDB/MI messages are newline terminated, so parse state between chunks is the unterminated line.</p>
+ */
+
+public final class GdbMiIncrementalReader
+{
+    private final GdbMiByteCursor cursor = new GdbMiByteCursor(new byte[0], 0, 0);
+
+    private byte[] pending = new byte[8192];
+
+    private int length = 0;
+
+    private int scanned = 0;
+
+    GdbMiIncrementalReader () { }
+
+    /**
+     * Property: lazy record decoding.
+     *
+     * @param value  true to decode lazily
+     * @return       this reader
+     * @see GdbMiReader#lazy(boolean)
+     */
+
+    public GdbMiIncrementalReader lazy (boolean value)
+    {
+        cursor.lazy = value;
+        return this;
+    }
+
+    /**
+     * Property: result visitors.
+     *
+     * @param value  visitor by context, or null
+     * @return       this reader
+     * @see GdbMiReader#visitors(IntFunction)
+     */
+
+    public GdbMiIncrementalReader visitors (IntFunction<GdbMiVisitor> value)
+    {
+        cursor.visitors = value;
+        return this;
+    }
+
+    /**
+     * Property: true if a partial message is pending.
+     *
+     * @return value
+     */
+
+    public boolean pending ()
+    {
+        return length != 0;
+    }
+
+    /**
+     * Feed chunk, emitting completed messages.
+     *
+     * <p>A line that cannot be parsed is skipped, and the following lines are still emitted;
+     * then the parse failure is thrown, with any further failures suppressed.
+     * The reader stays in step with the stream, and remains usable.</p>
+     *
+     * @param chunk  bytes; consumed entirely
+     * @param sink   message consumer
+     * @return       count of emitted messages
+     * @throws RuntimeException if some line cannot be parsed
+     */
+
+    public int feed (ByteBuffer chunk, Consumer<? super GdbMiMessage> sink)
+    {
+        final var size = chunk.remaining();
+        if (length + size > pending.length) pending = Arrays.copyOf(pending, Math.max(length + size, pending.length * 2));
+        chunk.get(pending, length, size);
+        length += size;
+
+        // find last complete line
+
+        int end = -1;
+        for (int i = length - 1; i >= scanned; --i) {
+            if (pending[i] == '\n') { end = i + 1; break; }
+        }
+        if (end == -1) {
+            scanned = length;
+            return 0;
+        }
+
+        // emit complete lines
+
+        int count = 0;
+        RuntimeException failure = null;
+        try
+        {
+            cursor.reset(pending, 0, end);
+            while (true)
+            {
+                final var line = cursor.position();
+                final GdbMiMessage message;
+                try
+                {
+                    message = cursor.message();
+                }
+                catch (RuntimeException e)
+                {
+                    if (failure == null) failure = e;
+                    else failure.addSuppressed(e);
+                    // messages are single lines: resume after the end of this one
+                    int next = line;
+                    while (pending[next] != '\n') ++next;
+                    cursor.clear();
+                    cursor.reset(pending, next + 1, end);
+                    continue;
+                }
+                if (message == null) break;
+                sink.accept(message);
+                ++count;
+            }
+        }
+        catch (IOException e)
+        {
+            // array cursors never read streams
+            throw new UncheckedIOException(e);
+        }
+        finally
+        {
+            // keep partial line
+
+            System.arraycopy(pending, end, pending, 0, length - end);
+            length -= end;
+            scanned = length;
+        }
+
+        if (failure != null) throw failure;
+        return count;
+    }
+}
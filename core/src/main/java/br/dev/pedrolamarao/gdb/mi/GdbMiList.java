@@ -1,18 +1,74 @@
 package br.dev.pedrolamarao.gdb.mi;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class GdbMiList
 {
-    private final List<Object> list;
+    private final Object[] list;
 
     public GdbMiList (List<Object> list)
+    {
+        this.list = list.toArray();
+    }
+
+    GdbMiList (Object[] list)
     {
         this.list = list;
     }
 
     public <T> T get (int index, Class<T> type)
     {
-        return type.cast(list.get(index));
+        return type.cast(list[index]);
+    }
+
+    /**
+     * Element as integer.
+     *
+     * @param index  element position
+     * @return       value
+     * @throws NumberFormatException if element is not a number
+     * @see GdbMiProperties#getLong(String)
+     */
+
+    public long getLong (int index)
+    {
+        return GdbMiNumbers.parseLong(list[index]);
     }
+
+    /**
+     * Element as integer.
+     *
+     * @param index  element position
+     * @return       value
+     * @throws NumberFormatException if element is not a number or out of range
+     * @see GdbMiProperties#getLong(String)
+     */
+
+    public int getInt (int index)
+    {
+        return GdbMiNumbers.toInt(getLong(index));
+    }
+
+    /**
+     * Element as address.
+     *
+     * @param index  element position
+     * @return       value
+     * @throws NumberFormatException if element is not an address
+     * @see GdbMiProperties#getAddress(String)
+     */
+
+    public long getAddress (int index)
+    {
+        return GdbMiNumbers.parseAddress(list[index]);
+    }
+
+    public int size ()
+    {
+        return list.length;
+    }
+
+    @Override
+    public String toString () { return Arrays.toString(list); }
 }
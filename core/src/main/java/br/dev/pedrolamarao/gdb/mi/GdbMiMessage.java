@@ -14,10 +14,22 @@ public abstract class GdbMiMessage
     /**
      * Property: message context.
      *
-     * @return value
+     * @return value, or null
+     */
+
+    public Integer context ()
+    {
+        final int token = token();
+        return token < 0 ? null : token;
+    }
+
+    /**
+     * Property: message context, without boxing.
+     *
+     * @return value, or -1 if none
      */
 
-    public abstract Integer context ();
+    public abstract int token ();
 
     /**
      * Property: message type.
@@ -35,14 +47,14 @@ public abstract class GdbMiMessage
     {
         final String content;
 
-        final Integer context;
+        final int token;
 
         final GdbMiType type;
 
-        StringMessage (String content, Integer context, GdbMiType type)
+        StringMessage (String content, int token, GdbMiType type)
         {
             this.content = content;
-            this.context = context;
+            this.token = token;
             this.type = type;
         }
 
@@ -52,7 +64,7 @@ public abstract class GdbMiMessage
         }
 
         @Override
-        public Integer context () { return context; }
+        public int token () { return token; }
 
         @Override
         public GdbMiType type ()
@@ -63,7 +75,7 @@ public abstract class GdbMiMessage
         private static final String template = "%s:%d:%s";
 
         @Override
-        public String toString () { return String.format(template, type, context, content); }
+        public String toString () { return String.format(template, type, context(), content); }
     }
 
     /**
@@ -77,7 +89,7 @@ public abstract class GdbMiMessage
 
     public static StringMessage string (GdbMiType type, Integer context, String content)
     {
-        return new StringMessage(content, context, type);
+        return new StringMessage(content, context == null ? -1 : context, type);
     }
 
     /**
@@ -88,14 +100,14 @@ public abstract class GdbMiMessage
     {
         final GdbMiRecord content;
 
-        final Integer context;
+        final int token;
 
         final GdbMiType type;
 
-        RecordMessage (GdbMiRecord content, Integer context, GdbMiType type)
+        RecordMessage (GdbMiRecord content, int token, GdbMiType type)
         {
             this.content = content;
-            this.context = context;
+            this.token = token;
             this.type = type;
         }
 
@@ -105,7 +117,7 @@ public abstract class GdbMiMessage
         }
 
         @Override
-        public Integer context () { return context; }
+        public int token () { return token; }
 
         @Override
         public GdbMiType type ()
@@ -116,7 +128,7 @@ public abstract class GdbMiMessage
         private static final String template = "%s:%d:%s";
 
         @Override
-        public String toString () { return String.format(template, type, context, content); }
+        public String toString () { return String.format(template, type, context(), content); }
     }
 
     /**
@@ -129,6 +141,6 @@ public abstract class GdbMiMessage
      */
     public static RecordMessage record (GdbMiType type, Integer context, GdbMiRecord content)
     {
-        return new RecordMessage(content, context, type);
+        return new RecordMessage(content, context == null ? -1 : context, type);
     }
 }
@@ -0,0 +1,169 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+/**
+ * GDB/MI number parsing.
+ *
+ * <p>Parses decimal and hexadecimal values in place, from strings or raw record bytes.
+ * Hexadecimal values are read as unsigned 64-bit quantities, as GDB prints addresses.</p>
+ */
+
+final class GdbMiNumbers
+{
+    private GdbMiNumbers () { }
+
+    /**
+     * Parse integer: decimal, optionally negative, or hexadecimal with {@code 0x} prefix.
+     *
+     * @param text   text
+     * @param start  range start
+     * @param end    range end
+     * @return       value
+     */
+
+    static long parseLong (CharSequence text, int start, int end)
+    {
+        if (start == end) throw new NumberFormatException("empty number");
+
+        if (end - start > 2 && text.charAt(start) == '0' && (text.charAt(start + 1) | 0x20) == 'x')
+            return parseHex(text, start + 2, end);
+
+        final boolean negative = text.charAt(start) == '-';
+        if (negative && ++start == end) throw new NumberFormatException("empty number");
+
+        long value = 0;
+        for (int i = start; i != end; ++i) {
+            final int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("invalid decimal digit: " + text.charAt(i));
+            if (value > (Long.MAX_VALUE - digit) / 10) throw new NumberFormatException("decimal number overflow");
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse address: hexadecimal, with optional {@code 0x} prefix.
+     *
+     * @param text   text
+     * @param start  range start
+     * @param end    range end
+     * @return       value
+     */
+
+    static long parseAddress (CharSequence text, int start, int end)
+    {
+        if (end - start > 2 && text.charAt(start) == '0' && (text.charAt(start + 1) | 0x20) == 'x')
+            start += 2;
+        return parseHex(text, start, end);
+    }
+
+    private static long parseHex (CharSequence text, int start, int end)
+    {
+        if (start == end) throw new NumberFormatException("empty number");
+        if (end - start > 16) throw new NumberFormatException("hexadecimal number overflow");
+
+        long value = 0;
+        for (int i = start; i != end; ++i) {
+            value = (value << 4) | hexDigit(text.charAt(i));
+        }
+        return value;
+    }
+
+    /**
+     * Parse integer: decimal, optionally negative, or hexadecimal with {@code 0x} prefix.
+     *
+     * @param array  ASCII bytes
+     * @param start  range start
+     * @param end    range end
+     * @return       value
+     */
+
+    static long parseLong (byte[] array, int start, int end)
+    {
+        if (start == end) throw new NumberFormatException("empty number");
+
+        if (end - start > 2 && array[start] == '0' && (array[start + 1] | 0x20) == 'x')
+            return parseHex(array, start + 2, end);
+
+        final boolean negative = array[start] == '-';
+        if (negative && ++start == end) throw new NumberFormatException("empty number");
+
+        long value = 0;
+        for (int i = start; i != end; ++i) {
+            final int digit = array[i] - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("invalid decimal digit: " + (char) array[i]);
+            if (value > (Long.MAX_VALUE - digit) / 10) throw new NumberFormatException("decimal number overflow");
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parse address: hexadecimal, with optional {@code 0x} prefix.
+     *
+     * @param array  ASCII bytes
+     * @param start  range start
+     * @param end    range end
+     * @return       value
+     */
+
+    static long parseAddress (byte[] array, int start, int end)
+    {
+        if (end - start > 2 && array[start] == '0' && (array[start + 1] | 0x20) == 'x')
+            start += 2;
+        return parseHex(array, start, end);
+    }
+
+    private static long parseHex (byte[] array, int start, int end)
+    {
+        if (start == end) throw new NumberFormatException("empty number");
+        if (end - start > 16) throw new NumberFormatException("hexadecimal number overflow");
+
+        long value = 0;
+        for (int i = start; i != end; ++i) {
+            value = (value << 4) | hexDigit(array[i]);
+        }
+        return value;
+    }
+
+    private static int hexDigit (int unit)
+    {
+        if (unit >= '0' && unit <= '9') return unit - '0';
+        if (unit >= 'a' && unit <= 'f') return unit - 'a' + 10;
+        if (unit >= 'A' && unit <= 'F') return unit - 'A' + 10;
+        throw new NumberFormatException("invalid hexadecimal digit: " + (char) unit);
+    }
+
+    /**
+     * Parse integer value: string, or raw slice.
+     *
+     * @param value  value
+     * @return       integer
+     */
+
+    static long parseLong (Object value)
+    {
+        if (value instanceof GdbMiSlice) return ((GdbMiSlice) value).parseLong();
+        final String text = (String) value;
+        return parseLong(text, 0, text.length());
+    }
+
+    /**
+     * Parse address value: string, or raw slice.
+     *
+     * @param value  value
+     * @return       address
+     */
+
+    static long parseAddress (Object value)
+    {
+        if (value instanceof GdbMiSlice) return ((GdbMiSlice) value).parseAddress();
+        final String text = (String) value;
+        return parseAddress(text, 0, text.length());
+    }
+
+    static int toInt (long value)
+    {
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) throw new NumberFormatException("integer overflow: " + value);
+        return (int) value;
+    }
+}
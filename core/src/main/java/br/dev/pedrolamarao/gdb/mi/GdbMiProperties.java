@@ -1,32 +1,203 @@
 package br.dev.pedrolamarao.gdb.mi;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * GDB/MI properties.
+ *
+ * <p>Properties keep parse order and admit duplicate names, as GDB/MI results may repeat them.
+ * Names and values are stored in parallel arrays sized to the parsed properties, and looked up linearly.</p>
  */
 
 public class GdbMiProperties
 {
-    private final Map<String, Object> properties;
+    private static final String[] noNames = new String[0];
+
+    private static final Object[] noValues = new Object[0];
+
+    private final String[] names;
+
+    private final Object[] values;
 
     public GdbMiProperties ()
     {
-        this.properties = Collections.emptyMap();
+        this(noNames, noValues);
     }
 
     public GdbMiProperties (HashMap<String, Object> properties)
     {
-        this.properties = properties;
+        this.names = new String[properties.size()];
+        this.values = new Object[properties.size()];
+        int i = 0;
+        for (Map.Entry<String, Object> entry : properties.entrySet()) {
+            names[i] = entry.getKey();
+            values[i] = entry.getValue();
+            ++i;
+        }
+    }
+
+    GdbMiProperties (String[] names, Object[] values)
+    {
+        this.names = names;
+        this.values = values;
     }
 
+    /**
+     * Property value.
+     *
+     * @param name  property name
+     * @param type  value type
+     * @param <T>   value type
+     * @return      value of the first property with this name, or null
+     */
+
     public <T> T get (String name, Class<T> type)
     {
-        return type.cast(properties.get(name));
+        final int index = indexOf(name);
+        return (index == -1) ? null : type.cast(decode(index));
+    }
+
+    /**
+     * Property value as integer.
+     *
+     * <p>Decimal values may be negative; hexadecimal values need the {@code 0x} prefix.
+     * Lazy values are parsed from the raw record bytes without decoding.</p>
+     *
+     * @param name  property name
+     * @return      value of the first property with this name
+     * @throws NoSuchElementException if no such property
+     * @throws NumberFormatException if value is not a number
+     */
+
+    public long getLong (String name)
+    {
+        return GdbMiNumbers.parseLong(values[require(name)]);
+    }
+
+    /**
+     * Property value as integer.
+     *
+     * @param name  property name
+     * @return      value of the first property with this name
+     * @throws NoSuchElementException if no such property
+     * @throws NumberFormatException if value is not a number or out of range
+     * @see #getLong(String)
+     */
+
+    public int getInt (String name)
+    {
+        return GdbMiNumbers.toInt(getLong(name));
+    }
+
+    /**
+     * Property value as address.
+     *
+     * <p>Addresses are hexadecimal, with optional {@code 0x} prefix, and unsigned.
+     * Lazy values are parsed from the raw record bytes without decoding.</p>
+     *
+     * @param name  property name
+     * @return      value of the first property with this name
+     * @throws NoSuchElementException if no such property
+     * @throws NumberFormatException if value is not an address
+     */
+
+    public long getAddress (String name)
+    {
+        return GdbMiNumbers.parseAddress(values[require(name)]);
+    }
+
+    /**
+     * Property values.
+     *
+     * @param name  property name
+     * @param type  value type
+     * @param <T>   value type
+     * @return      values of all properties with this name, in order
+     */
+
+    public <T> List<T> getAll (String name, Class<T> type)
+    {
+        final ArrayList<T> list = new ArrayList<>();
+        for (int i = 0, j = names.length; i != j; ++i) {
+            if (names[i].equals(name)) list.add(type.cast(decode(i)));
+        }
+        return list;
+    }
+
+    /**
+     * Property name at position.
+     *
+     * @param index  property position
+     * @return       name
+     */
+
+    public String name (int index)
+    {
+        return names[index];
+    }
+
+    /**
+     * Property value at position.
+     *
+     * @param index  property position
+     * @param type   value type
+     * @param <T>    value type
+     * @return       value
+     */
+
+    public <T> T value (int index, Class<T> type)
+    {
+        return type.cast(decode(index));
+    }
+
+    /**
+     * Property: property count.
+     *
+     * @return value
+     */
+
+    public int size ()
+    {
+        return names.length;
+    }
+
+    private int indexOf (String name)
+    {
+        for (int i = 0, j = names.length; i != j; ++i) {
+            if (names[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    private int require (String name)
+    {
+        final int index = indexOf(name);
+        if (index == -1) throw new NoSuchElementException("no such property: " + name);
+        return index;
+    }
+
+    private Object decode (int index)
+    {
+        final Object value = values[index];
+        if (! (value instanceof GdbMiSlice)) return value;
+        // lazy record: decode on first access; decoding is idempotent
+        final Object decoded = ((GdbMiSlice) value).decode();
+        values[index] = decoded;
+        return decoded;
     }
 
     @Override
-    public String toString () { return properties.toString(); }
+    public String toString ()
+    {
+        final StringBuilder builder = new StringBuilder("{");
+        for (int i = 0, j = names.length; i != j; ++i) {
+            if (i != 0) builder.append(", ");
+            builder.append(names[i]).append('=').append(decode(i));
+        }
+        return builder.append('}').toString();
+    }
 }
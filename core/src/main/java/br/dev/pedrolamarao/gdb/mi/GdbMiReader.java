@@ -7,8 +7,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.Charset;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntFunction;
 
 
 /**
@@ -17,11 +17,16 @@ import java.util.HashMap;
 
 public class GdbMiReader
 {
-    private final Reader reader;
+    private final GdbMiCursor cursor;
 
     GdbMiReader (Reader reader)
     {
-        this.reader = reader;
+        this( new GdbMiCharCursor(reader) );
+    }
+
+    GdbMiReader (GdbMiCursor cursor)
+    {
+        this.cursor = cursor;
     }
 
     public static GdbMiReader fromReader (Reader reader)
@@ -29,16 +34,82 @@ public class GdbMiReader
         return new GdbMiReader(reader);
     }
 
+    /**
+     * Reader from byte stream.
+     *
+     * <p>UTF-8 streams are parsed directly from bytes; other charsets are decoded through a {@link Reader}.</p>
+     *
+     * @param stream   byte stream
+     * @param charset  stream charset
+     * @return         new reader
+     */
+
     public static GdbMiReader fromStream (InputStream stream, Charset charset)
     {
-        return new GdbMiReader( new InputStreamReader(stream, charset) );
+        if (charset.equals(StandardCharsets.UTF_8))
+            return new GdbMiReader( new GdbMiByteCursor(stream) );
+        else
+            return new GdbMiReader( new InputStreamReader(stream, charset) );
+    }
+
+    /**
+     * Incremental reader, for chunks of UTF-8 bytes.
+     *
+     * @return new reader
+     */
+
+    public static GdbMiIncrementalReader incremental ()
+    {
+        return new GdbMiIncrementalReader();
+    }
+
+    /**
+     * Property: lazy record decoding.
+     *
+     * <p>Lazy records index top-level property names only;
+     * values are kept as raw slices of the record line and decoded on first {@link GdbMiProperties#get}.
+     * Supported by readers created with {@link #fromStream} for UTF-8 streams; ignored otherwise.</p>
+     *
+     * @param value  true to decode lazily
+     * @return       this reader
+     */
+
+    public GdbMiReader lazy (boolean value)
+    {
+        cursor.lazy = value;
+        return this;
+    }
+
+    /**
+     * Property: result visitors.
+     *
+     * <p>Result records whose context maps to a visitor are pushed to that visitor while parsing,
+     * and read without properties; see {@link GdbMiVisitor}.</p>
+     *
+     * @param value  visitor by context, or null
+     * @return       this reader
+     */
+
+    public GdbMiReader visitors (IntFunction<GdbMiVisitor> value)
+    {
+        cursor.visitors = value;
+        return this;
     }
 
     public GdbMiMessage read () throws IOException
     {
-        return readMessage(reader);
+        return cursor.message();
     }
 
+    /**
+     * Production result: value and lookahead token.
+     *
+     * <p>Only allocated by the static production methods below;
+     * {@link #read()} keeps the lookahead in its cursor.</p>
+     *
+     * @param <T> value type
+     */
+
     static final class Read<T>
     {
         final int next;
@@ -53,185 +124,150 @@ public class GdbMiReader
         @Override public String toString () { return String.format("next = %s, value = %s", next, value); }
     }
 
+    /**
+     * Cursor for the static productions: one per thread, rebound to each reader,
+     * so reading a message costs no cursor nor scratch buffers.
+     */
+
+    private static final ThreadLocal<GdbMiCharCursor> cursors = ThreadLocal.withInitial(() -> new GdbMiCharCursor(null));
+
     public static GdbMiMessage readMessage (Reader reader) throws IOException
     {
-        final Read<Integer> context = readContext(reader);
-        final int token = context.next;
-        if (token == -1) return null;
-
-        switch (context.next)
+        final var cursor = cursors.get().reset(reader);
+        try
         {
-            case '~':
-                return readFinishStringMessage(GdbMiType.Console, context.value, reader);
-            case '@':
-                return readFinishStringMessage(GdbMiType.Target, context.value, reader);
-            case '&':
-                return readFinishStringMessage(GdbMiType.Log, context.value, reader);
-            case '*':
-                return readFinishRecordMessage(GdbMiType.Execute, context.value, reader);
-            case '=':
-                return readFinishRecordMessage(GdbMiType.Notify, context.value, reader);
-            case '+':
-                return readFinishRecordMessage(GdbMiType.Status, context.value, reader);
-            case '^':
-                return readFinishRecordMessage(GdbMiType.Result, context.value, reader);
-            case '(':
-                return readFinishPrompt(token, reader);
-            default:
-                throw new RuntimeException("unexpected token in message-type: " + (char) token);
+            return cursor.message();
+        }
+        finally
+        {
+            cursor.reset(null);
         }
     }
 
     static GdbMiMessage.StringMessage readFinishStringMessage (GdbMiType type, Integer context, Reader reader) throws IOException
     {
-        final var string = readString(reader);
-        int token = string.next;
-
-        while (token != -1 && token != '\n') {
-            token = reader.read();
+        final var cursor = cursors.get().reset(reader);
+        try
+        {
+            return cursor.finishStringMessage(type, context == null ? -1 : context);
+        }
+        finally
+        {
+            cursor.reset(null);
         }
-
-        return GdbMiMessage.string(type, context, string.value);
     }
 
     static GdbMiMessage.RecordMessage readFinishRecordMessage (GdbMiType type, Integer context, Reader reader) throws IOException
     {
-        final var record = readRecord(reader);
-        int token = record.next;
-
-        while (token != -1 && token != '\n') {
-            token = reader.read();
+        final var cursor = cursors.get().reset(reader);
+        try
+        {
+            return cursor.finishRecordMessage(type, context == null ? -1 : context);
+        }
+        finally
+        {
+            cursor.reset(null);
         }
-
-        return GdbMiMessage.record(type, context, record.value);
     }
 
     public static GdbMiMessage.StringMessage readFinishPrompt (int token, Reader reader) throws IOException
     {
-        final var prompt = "(gdb)".toCharArray();
-
-        for (int i = 0, j = prompt.length; i != j; ++i) {
-            if (token == -1) throw new RuntimeException("unexpected end-of-stream in prompt");
-            if (token != prompt[i]) raiseUnexpected(token, prompt[i]);
-            token = reader.read();
+        final var cursor = cursors.get().reset(reader);
+        try
+        {
+            cursor.token = token;
+            return cursor.finishPrompt();
         }
-
-        while (token != -1 && token != '\n') {
-            token = reader.read();
+        finally
+        {
+            cursor.reset(null);
         }
-
-        return GdbMiMessage.string(GdbMiType.Prompt, null, "");
     }
 
     public static Read<Integer> readContext (Reader reader) throws IOException
     {
-        int token = reader.read();
-        if (token == -1) return new Read<>(token, null);
-        if (! Character.isDigit(token)) return new Read<>(token, null);
-
-        final var builder = new StringBuilder();
-        do {
-            builder.append((char) token);
-            token = reader.read();
+        final var cursor = cursors.get().reset(reader);
+        try
+        {
+            cursor.token = cursor.next();
+            final var context = cursor.context();
+            return new Read<>(cursor.token, context < 0 ? null : context);
+        }
+        finally
+        {
+            cursor.reset(null);
         }
-        while (Character.isDigit(token));
-
-        return new Read<>(token, Integer.parseInt( builder.toString() ));
     }
 
     public static Read<GdbMiRecord> readRecord (Reader reader) throws IOException
     {
-        final var type = readSimpleString(reader);
-        int token = type.next;
-        if (token == -1) return null;
-
-        final Read<GdbMiProperties> properties =
-            (token == ',') ? readProperties(reader) : new Read<>(0, new GdbMiProperties());
-        token = properties.next;
-
-        return new Read<>(token, new GdbMiRecord(type.value, properties.value));
+        final var cursor = cursors.get().reset(reader);
+        try
+        {
+            final var record = cursor.record();
+            return new Read<>(cursor.token, record);
+        }
+        finally
+        {
+            cursor.reset(null);
+        }
     }
 
     public static Read<GdbMiProperties> readProperties (Reader reader) throws IOException
     {
-        final var properties = new HashMap<String, Object>();
-
-        int token;
-
-        do
+        final var cursor = cursors.get().reset(reader);
+        try
         {
-            final var name = readSimpleString(reader);
-            token = name.next;
-            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-name");
-
-            if (token != '=') raiseUnexpected(token, '=');
-
-            final var value = readPropertyValue(reader);
-            token = value.next;
-
-            properties.put(name.value, value.value);
+            final var properties = cursor.properties();
+            return new Read<>(cursor.token, properties);
+        }
+        finally
+        {
+            cursor.reset(null);
         }
-        while (token == ',');
-
-        return new Read<>(token, new GdbMiProperties(properties));
     }
 
     public static Read<GdbMiList> readPropertyValues (Reader reader) throws IOException
     {
-        final var list = new ArrayList<>();
-
-        int token;
-
-        do
+        final var cursor = cursors.get().reset(reader);
+        try
         {
-            final var value = readPropertyValue(reader);
-            token = value.next;
-            list.add(value.value);
+            final var list = cursor.values();
+            return new Read<>(cursor.token, list);
+        }
+        finally
+        {
+            cursor.reset(null);
         }
-        while (token == ',');
-
-        return new Read<>(token, new GdbMiList(list));
     }
 
     public static Read<Object> readPropertyValue (Reader reader) throws IOException
     {
-        int token = reader.read();
-        if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-value");
-
-        switch (token)
+        final var cursor = cursors.get().reset(reader);
+        try
+        {
+            cursor.token = cursor.next();
+            final var value = cursor.value();
+            return new Read<>(cursor.token, value);
+        }
+        finally
         {
-        case '{':
-            final var properties = readProperties(reader);
-            token = properties.next;
-            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-value");
-            if (token != '}') raiseUnexpected(token, '}');
-            token = reader.read();
-            return new Read<>(token, properties.value);
-        case '[':
-            final var list = readPropertyValues(reader);
-            token = list.next;
-            if (token == -1) throw new RuntimeException("unexpected end-of-stream in property-value");
-            if (token != ']') raiseUnexpected(token, ']');
-            token = reader.read();
-            return new Read<>(token, list.value);
-        case '"':
-            final var quotedString = readFinishQuotedString(token, reader);
-            return new Read<>(quotedString.next, quotedString.value);
-        default:
-            final var string = readFinishSimpleString(token, reader);
-            return new Read<>(string.next, string.value);
+            cursor.reset(null);
         }
     }
 
     public static Read<String> readString (Reader reader) throws IOException
     {
-        int token = reader.read();
-        if (token == -1) return new Read<>(token, "");
-
-        if (token == '"')
-            return readFinishQuotedString(token, reader);
-        else
-            return readFinishSimpleString(token, reader);
+        final var cursor = cursors.get().reset(reader);
+        try
+        {
+            final var string = cursor.string();
+            return new Read<>(cursor.token, string);
+        }
+        finally
+        {
+            cursor.reset(null);
+        }
     }
 
     public static Read<String> readSimpleString (Reader reader) throws IOException
@@ -241,39 +277,32 @@ public class GdbMiReader
 
     public static Read<String> readFinishSimpleString (int token, Reader reader) throws IOException
     {
-        final var builder = new StringBuilder();
-
-        while (Character.isAlphabetic(token) || token == '-')
+        final var cursor = cursors.get().reset(reader);
+        try
         {
-            builder.append((char) token);
-            token = reader.read();
+            cursor.token = token;
+            final var string = cursor.simpleString();
+            return new Read<>(cursor.token, string);
+        }
+        finally
+        {
+            cursor.reset(null);
         }
-
-        return new Read<>(token, builder.toString());
     }
 
     public static Read<String> readFinishQuotedString (int token, Reader reader) throws IOException
     {
-        final var builder = new StringBuilder();
-
-        token = reader.read();
-        if (token == -1) throw new RuntimeException("unexpected end-of-string in quoted-string");
-
-        while (token != '"')
+        final var cursor = cursors.get().reset(reader);
+        try
         {
-            if (token == '\\') {
-                token = reader.read();
-                if (token == -1) throw new RuntimeException("unexpected end-of-stream in escape-sequence");
-            }
-
-            builder.append((char) token);
-            token = reader.read();
-            if (token == -1) throw new RuntimeException("unexpected end-of-stream in quoted-string");
+            cursor.token = token;
+            final var string = cursor.quotedString();
+            return new Read<>(cursor.token, string);
+        }
+        finally
+        {
+            cursor.reset(null);
         }
-
-        token = reader.read();
-
-        return new Read<>(token, builder.toString());
     }
 
     public static void raiseUnexpected (int actual, int expected)
@@ -0,0 +1,93 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * GDB/MI raw value.
+ *
+ * <p>Undecoded property value retained by lazy records: a range of the raw UTF-8 record line.</p>
+ */
+
+final class GdbMiSlice
+{
+    final byte[] line;
+
+    final int start;
+
+    final int end;
+
+    GdbMiSlice (byte[] line, int start, int end)
+    {
+        this.line = line;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Decode value.
+     *
+     * @return string, properties or list
+     */
+
+    Object decode ()
+    {
+        try
+        {
+            final GdbMiByteCursor cursor = new GdbMiByteCursor(line, start, end);
+            cursor.token = cursor.next();
+            return cursor.value();
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Parse integer value in place, decoding only if the raw value has escape sequences.
+     *
+     * @return integer
+     */
+
+    long parseLong ()
+    {
+        final int quoted = quoted();
+        if (quoted == -1) return GdbMiNumbers.parseLong(decode());
+        return GdbMiNumbers.parseLong(line, start + quoted, end - quoted);
+    }
+
+    /**
+     * Parse address value in place, decoding only if the raw value has escape sequences.
+     *
+     * @return address
+     */
+
+    long parseAddress ()
+    {
+        final int quoted = quoted();
+        if (quoted == -1) return GdbMiNumbers.parseAddress(decode());
+        return GdbMiNumbers.parseAddress(line, start + quoted, end - quoted);
+    }
+
+    /**
+     * Quote length of plain string value.
+     *
+     * @return 1 if quoted, 0 if bare, -1 if neither a plain quoted nor bare string
+     */
+
+    private int quoted ()
+    {
+        if (start == end) return 0;
+        final byte first = line[start];
+        if (first == '{' || first == '[') return -1;
+        if (first != '"') return 0;
+        for (int i = start + 1; i < end - 1; ++i) {
+            if (line[i] == '\\') return -1;
+        }
+        return 1;
+    }
+
+    @Override
+    public String toString () { return String.valueOf(decode()); }
+}
@@ -0,0 +1,149 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+/**
+ * GDB/MI symbol table.
+ *
+ * <p>Canonical instances of frequent property names, result classes and enumerated values.
+ * Lookup hashes the code units in place, so a match costs no allocation
+ * and retained records share a single instance of each symbol.</p>
+ */
+
+final class GdbMiSymbols
+{
+    /**
+     * Longest symbol; longer ranges are never looked up.
+     */
+
+    static final int maxLength = 32;
+
+    private static final String[] symbols =
+    {
+        // result classes and async classes
+        "done", "running", "connected", "error", "exit",
+        "stopped",
+        "thread-group-added", "thread-group-removed", "thread-group-started", "thread-group-exited",
+        "thread-created", "thread-exited", "thread-selected",
+        "library-loaded", "library-unloaded",
+        "traceframe-changed", "tsv-created", "tsv-deleted", "tsv-modified",
+        "breakpoint-created", "breakpoint-modified", "breakpoint-deleted",
+        "record-started", "record-stopped",
+        "cmd-param-changed", "memory-changed",
+        "download",
+
+        // stop reasons
+        "reason",
+        "breakpoint-hit", "watchpoint-trigger", "read-watchpoint-trigger", "access-watchpoint-trigger",
+        "function-finished", "location-reached", "watchpoint-scope", "end-stepping-range",
+        "exited-signalled", "exited", "exited-normally", "signal-received",
+        "solib-event", "fork", "vfork", "syscall-entry", "syscall-return", "exec", "no-history",
+        "signal-name", "signal-meaning", "SIGINT", "SIGSEGV", "SIGTRAP", "SIGABRT",
+        "Interrupt", "Segmentation fault", "Trace/breakpoint trap", "Aborted",
+
+        // frames and threads
+        "frame", "level", "addr", "func", "args", "name", "value", "type", "file", "fullname",
+        "line", "arch", "from", "stack", "stack-args", "locals", "variables",
+        "thread-id", "thread-groups", "stopped-threads", "current-thread-id", "threads",
+        "target-id", "state", "core", "id", "group-id", "pid", "exit-code", "all",
+        "i386", "i386:x86-64", "aarch64", "arm", "??",
+
+        // breakpoints
+        "bkpt", "bkptno", "number", "breakpoint", "hw breakpoint", "watchpoint",
+        "read watchpoint", "acc watchpoint", "disp", "keep", "del", "dis", "enabled",
+        "at", "times", "original-location", "cond", "ignore", "what", "pending",
+        "wpt", "hw-rwpt", "hw-awpt", "exp", "old", "new",
+        "y", "n",
+
+        // data
+        "msg", "param", "register-names", "register-values", "changed-registers",
+        "memory", "begin", "offset", "end", "contents", "asm_insns", "address", "func-name",
+        "inst", "opcodes", "src_and_asm_line", "line_asm_insn", "symbols", "debug", "nondebug",
+        "filename", "description", "features", "numchild", "has_more", "dynamic", "displayhint",
+        "children", "child", "frozen", "in_scope", "type_changed", "new_type",
+        "changelist", "format",
+
+        // common values
+        "0", "1", "2", "3", "4", "5", "6", "7", "8", "9",
+        "i1", "main", "true", "false",
+    };
+
+    private static final String[] table = new String[1024];
+
+    static
+    {
+        for (String symbol : symbols)
+        {
+            final int hash = symbol.hashCode();
+            for (int i = hash & (table.length - 1); ; i = (i + 1) & (table.length - 1))
+            {
+                if (table[i] == null) { table[i] = symbol; break; }
+                if (table[i].equals(symbol)) break;
+            }
+        }
+    }
+
+    private GdbMiSymbols () { }
+
+    /**
+     * Look up symbol spelled by ASCII bytes.
+     *
+     * @param array   bytes
+     * @param offset  range offset
+     * @param length  range length
+     * @return        symbol, or null if not a symbol
+     */
+
+    static String lookup (byte[] array, int offset, int length)
+    {
+        if (length > maxLength) return null;
+
+        int hash = 0;
+        for (int i = offset, j = offset + length; i != j; ++i) hash = 31 * hash + array[i];
+
+        for (int i = hash & (table.length - 1); ; i = (i + 1) & (table.length - 1))
+        {
+            final String symbol = table[i];
+            if (symbol == null) return null;
+            if (symbol.length() == length && matches(symbol, array, offset)) return symbol;
+        }
+    }
+
+    /**
+     * Look up symbol spelled by characters.
+     *
+     * @param array   characters
+     * @param offset  range offset
+     * @param length  range length
+     * @return        symbol, or null if not a symbol
+     */
+
+    static String lookup (char[] array, int offset, int length)
+    {
+        if (length > maxLength) return null;
+
+        int hash = 0;
+        for (int i = offset, j = offset + length; i != j; ++i) hash = 31 * hash + array[i];
+
+        for (int i = hash & (table.length - 1); ; i = (i + 1) & (table.length - 1))
+        {
+            final String symbol = table[i];
+            if (symbol == null) return null;
+            if (symbol.length() == length && matches(symbol, array, offset)) return symbol;
+        }
+    }
+
+    private static boolean matches (String symbol, byte[] array, int offset)
+    {
+        for (int i = 0, j = symbol.length(); i != j; ++i) {
+            if (symbol.charAt(i) != array[offset + i]) return false;
+        }
+        return true;
+    }
+
+    private static boolean matches (String symbol, char[] array, int offset)
+    {
+        for (int i = 0, j = symbol.length(); i != j; ++i) {
+            if (symbol.charAt(i) != array[offset + i]) return false;
+        }
+        return true;
+    }
+}
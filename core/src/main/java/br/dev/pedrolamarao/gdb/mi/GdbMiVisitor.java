@@ -0,0 +1,29 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+/**
+ * GDB/MI result visitor.
+ *
+ * <p>Receives result record properties as they are parsed, instead of a materialized property tree.
+ * Top-level properties are visited as a sequence of keys and values, without enclosing tuple events;
+ * names in result lists are visited as keys.</p>
+ *
+ * <p>Every callback returns true to continue or false to abort;
+ * after abort the remainder of the record is skipped without further callbacks.</p>
+ *
+ * <p>Callbacks run on the reading thread and must not block.</p>
+ */
+
+public interface GdbMiVisitor
+{
+    default boolean tupleBegin () { return true; }
+
+    default boolean tupleEnd () { return true; }
+
+    default boolean listBegin () { return true; }
+
+    default boolean listEnd () { return true; }
+
+    default boolean key (String name) { return true; }
+
+    default boolean value (String value) { return true; }
+}
@@ -1,18 +1,25 @@
 package br.dev.pedrolamarao.gdb.mi;
 
-import lombok.var;
-
 import java.io.IOException;
 import java.io.Writer;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
 
 /**
  * GDB/MI message writer.
+ *
+ * <p>Writers encode messages directly into a {@link GdbMiBuffer}:
+ * context digits, pre-encoded operation and escaped arguments, with no format strings nor intermediate text.</p>
  */
 
 public abstract class GdbMiWriter
 {
+    private static final byte newline = '\n';
+
+    private static final byte space = ' ';
+
+    int context = -1;
+
     GdbMiWriter () { super(); }
 
     /**
@@ -24,6 +31,28 @@ public abstract class GdbMiWriter
 
     public abstract GdbMiWriter context (int value);
 
+    /**
+     * Write message.
+     *
+     * @param buffer  command buffer
+     * @return        command buffer
+     */
+
+    public abstract GdbMiBuffer write (GdbMiBuffer buffer);
+
+    /**
+     * Property: message identity, regardless of context.
+     *
+     * <p>Writers of equal keys write the same message, but for context.</p>
+     *
+     * @return value, or null if not supported
+     */
+
+    public Object key ()
+    {
+        return null;
+    }
+
     /**
      * Write message.
      *
@@ -31,59 +60,119 @@ public abstract class GdbMiWriter
      * @return             text writer
      * @throws IOException if communication failure
      */
-    public abstract Writer write (Writer writer) throws IOException;
 
-    public static final class GdbMiSimpleWriter extends GdbMiWriter
+    public Writer write (Writer writer) throws IOException
     {
-        private String context = "";
+        Objects.requireNonNull(writer);
+        writer.write(write(new GdbMiBuffer()).toString());
+        return writer;
+    }
 
-        private final String message;
+    GdbMiBuffer operation (GdbMiBuffer buffer, byte[] operation)
+    {
+        if (context >= 0) buffer.append(context);
+        return buffer.append(operation);
+    }
 
-        GdbMiSimpleWriter (String message) { this.message = message; }
+    public static final class GdbMiSimpleWriter extends GdbMiWriter
+    {
+        private final byte[] operation;
+
+        GdbMiSimpleWriter (String message) { this.operation = GdbMiBuffer.ascii("-" + message); }
 
         @Override
         public GdbMiSimpleWriter context (int value)
         {
-            context = Integer.toString(value, 10);
+            context = value;
             return this;
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            writer.write(String.format("%s-%s\n", context, message));
-            return writer;
+            return operation(buffer, operation).append(newline);
         }
     }
 
+    /**
+     * GDB/MI {@code break-delete} message writer.
+     */
+
+    public static final class GdbMiBreakDeleteWriter extends GdbMiWriter
+    {
+        private static final byte[] operation = GdbMiBuffer.ascii("-break-delete");
+
+        private int[] breakpoints = { };
+
+        GdbMiBreakDeleteWriter () { }
+
+        @Override
+        public GdbMiBreakDeleteWriter context (int value)
+        {
+            context = value;
+            return this;
+        }
+
+        public GdbMiBreakDeleteWriter breakpoints (int... value)
+        {
+            breakpoints = value.clone();
+            return this;
+        }
+
+        @Override
+        public GdbMiBuffer write (GdbMiBuffer buffer)
+        {
+            operation(buffer, operation);
+            for (int breakpoint : breakpoints) buffer.append(space).append(breakpoint);
+            return buffer.append(newline);
+        }
+    }
+
+    /**
+     * GDB/MI {@code break-delete} message writer; deletes every breakpoint unless otherwise chosen.
+     *
+     * @return new message writer
+     */
+
+    public static GdbMiBreakDeleteWriter breakDelete ()
+    {
+        return new GdbMiBreakDeleteWriter();
+    }
+
     /**
      * GDB/MI {@code break-insert} message writer.
      */
 
     public static final class GdbMiBreakInsertWriter extends GdbMiWriter
     {
-        private String context = "";
+        private static final byte[] operation = GdbMiBuffer.ascii("-break-insert");
 
-        private final ArrayList<String> options = new ArrayList<>();
+        private static final byte[] hardwareOption = GdbMiBuffer.ascii(" -h");
+
+        private static final byte[] pendingOption = GdbMiBuffer.ascii(" -f");
+
+        private boolean hardware = false;
+
+        private boolean pending = false;
 
         private String location = null;
 
         @Override
         public GdbMiBreakInsertWriter context (int value)
         {
-            context = Integer.toString(value, 10);
+            context = value;
             return this;
         }
 
         public GdbMiBreakInsertWriter hardware ()
         {
-            options.add("-h");
+            hardware = true;
             return this;
         }
 
         public GdbMiBreakInsertWriter pending ()
         {
-            options.add("-f");
+            pending = true;
             return this;
         }
 
@@ -94,13 +183,13 @@ public abstract class GdbMiWriter
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            Objects.requireNonNull(writer);
-            final var opt = String.join(" ", options);
-            final var message = String.format("%s-break-insert %s %s\n", context, opt, location);
-            writer.write(message);
-            return writer;
+            Objects.requireNonNull(location);
+            operation(buffer, operation);
+            if (hardware) buffer.append(hardwareOption);
+            if (pending) buffer.append(pendingOption);
+            return buffer.append(space).argument(location).append(newline);
         }
     }
 
@@ -121,21 +210,23 @@ public abstract class GdbMiWriter
 
     public static final class GdbMiBreakWatchWriter extends GdbMiWriter
     {
-        private String context = "";
+        private static final byte[] operation = GdbMiBuffer.ascii("-break-watch");
 
-        private String option = "";
+        private static final byte[] readOption = GdbMiBuffer.ascii(" -r");
+
+        private boolean read = false;
 
         private String symbol = null;
 
         @Override
         public GdbMiBreakWatchWriter context (int value)
         {
-            context = Integer.toString(value, 10);
+            context = value;
             return this;
         }
         public GdbMiBreakWatchWriter read ()
         {
-            option = "-r";
+            read = true;
             return this;
         }
 
@@ -146,12 +237,12 @@ public abstract class GdbMiWriter
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            Objects.requireNonNull(writer);
-            final var message = String.format("%s-break-watch %s %s\n", context, option, symbol);
-            writer.write(message);
-            return writer;
+            Objects.requireNonNull(symbol);
+            operation(buffer, operation);
+            if (read) buffer.append(readOption);
+            return buffer.append(space).argument(symbol).append(newline);
         }
     }
 
@@ -166,20 +257,98 @@ public abstract class GdbMiWriter
         return new GdbMiBreakWatchWriter();
     }
 
+    /**
+     * GDB/MI {@code data-list-register-values} message writer.
+     */
+
+    public static final class GdbMiDataListRegisterValuesWriter extends GdbMiWriter
+    {
+        private static final byte[] operation = GdbMiBuffer.ascii("-data-list-register-values");
+
+        private static final byte[] threadOption = GdbMiBuffer.ascii(" --thread ");
+
+        private static final byte[] frameOption = GdbMiBuffer.ascii(" --frame ");
+
+        private String format = "x";
+
+        private int thread = -1;
+
+        private int frame = -1;
+
+        private int[] registers = { };
+
+        GdbMiDataListRegisterValuesWriter () { }
+
+        @Override
+        public GdbMiDataListRegisterValuesWriter context (int value)
+        {
+            context = value;
+            return this;
+        }
+
+        public GdbMiDataListRegisterValuesWriter format (String value)
+        {
+            Objects.requireNonNull(value);
+            format = value;
+            return this;
+        }
+
+        public GdbMiDataListRegisterValuesWriter frame (int thread, int frame)
+        {
+            if (thread < 0 || frame < 0) throw new IllegalArgumentException("thread and frame must not be negative");
+            this.thread = thread;
+            this.frame = frame;
+            return this;
+        }
+
+        public GdbMiDataListRegisterValuesWriter registers (int... value)
+        {
+            registers = value.clone();
+            return this;
+        }
+
+        @Override
+        public GdbMiBuffer write (GdbMiBuffer buffer)
+        {
+            operation(buffer, operation);
+            if (thread >= 0) buffer.append(threadOption).append(thread).append(frameOption).append(frame);
+            buffer.append(space).argument(format);
+            for (int register : registers) buffer.append(space).append(register);
+            return buffer.append(newline);
+        }
+
+        @Override
+        public Object key ()
+        {
+            return Arrays.asList(operation, thread, frame, format, Arrays.toString(registers));
+        }
+    }
+
+    /**
+     * GDB/MI {@code data-list-register-values} message writer.
+     *
+     * @return new message writer
+     */
+
+    public static GdbMiDataListRegisterValuesWriter dataListRegisterValues ()
+    {
+        return new GdbMiDataListRegisterValuesWriter();
+    }
+
     /**
      * GDB/MI {@code file-exec-and-symbols} message writer.
      */
 
     public static final class GdbMiFileExecAndSymbolsWriter extends GdbMiWriter
     {
-        private String context = "";
+        private static final byte[] operation = GdbMiBuffer.ascii("-file-exec-and-symbols ");
 
         private String path = null;
 
         @Override
         public GdbMiFileExecAndSymbolsWriter context (int value)
         {
-            context = Integer.toString(value, 10);
+            context = value;
             return this;
         }
 
@@ -191,12 +360,10 @@ public abstract class GdbMiWriter
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            Objects.requireNonNull(writer);
-            final var message = String.format("%s-file-exec-and-symbols %s\n", context, path);
-            writer.write(message);
-            return writer;
+            Objects.requireNonNull(path);
+            return operation(buffer, operation).argument(path).append(newline);
         }
     }
 
@@ -228,30 +395,31 @@ public abstract class GdbMiWriter
 
     public static final class GdbMiExecContinueWriter extends GdbMiWriter
     {
-        private String context = "";
+        private static final byte[] operation = GdbMiBuffer.ascii("-exec-continue");
+
+        private static final byte[] reverseOption = GdbMiBuffer.ascii(" --reverse");
 
-        private final ArrayList<String> options = new ArrayList<>();
+        private boolean reverse = false;
 
         @Override
         public GdbMiExecContinueWriter context (int value)
         {
-            context = Integer.toString(value, 10);
+            context = value;
             return this;
         }
 
         public GdbMiExecContinueWriter reverse ()
         {
-            options.add("--reverse");
+            reverse = true;
             return this;
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            Objects.requireNonNull(writer);
-            final var message = String.format("%s-exec-continue %s\n", context, String.join(" ", options));
-            writer.write(message);
-            return writer;
+            operation(buffer, operation);
+            if (reverse) buffer.append(reverseOption);
+            return buffer.append(newline);
         }
     }
 
@@ -266,36 +434,82 @@ public abstract class GdbMiWriter
         return new GdbMiExecContinueWriter();
     }
 
+    /**
+     * GDB/MI {@code exec-interrupt} message writer.
+     */
+
+    public static final class GdbMiExecInterruptWriter extends GdbMiWriter
+    {
+        private static final byte[] operation = GdbMiBuffer.ascii("-exec-interrupt");
+
+        private static final byte[] allOption = GdbMiBuffer.ascii(" --all");
+
+        private boolean all = false;
+
+        @Override
+        public GdbMiExecInterruptWriter context (int value)
+        {
+            context = value;
+            return this;
+        }
+
+        public GdbMiExecInterruptWriter all ()
+        {
+            all = true;
+            return this;
+        }
+
+        @Override
+        public GdbMiBuffer write (GdbMiBuffer buffer)
+        {
+            operation(buffer, operation);
+            if (all) buffer.append(allOption);
+            return buffer.append(newline);
+        }
+    }
+
+    /**
+     * GDB/MI {@code exec-interrupt} message writer.
+     *
+     * @return new message writer
+     */
+
+    public static GdbMiExecInterruptWriter execInterrupt ()
+    {
+        return new GdbMiExecInterruptWriter();
+    }
+
     /**
      * GDB/MI {@code exec-run} message writer.
      */
 
     public static final class GdbMiExecRunWriter extends GdbMiWriter
     {
-        private String context = "";
+        private static final byte[] operation = GdbMiBuffer.ascii("-exec-run");
 
-        private final ArrayList<String> options = new ArrayList<>();
+        private static final byte[] startOption = GdbMiBuffer.ascii(" --start");
+
+        private boolean start = false;
 
         @Override
         public GdbMiExecRunWriter context (int value)
         {
-            context = Integer.toString(value, 10);
+            context = value;
             return this;
         }
 
         public GdbMiExecRunWriter stop ()
         {
-            options.add("--start");
+            start = true;
             return this;
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            Objects.requireNonNull(writer);
-            final var message = String.format("%s-exec-run %s\n", context, String.join(" ", options));
-            writer.write(message);
-            return writer;
+            operation(buffer, operation);
+            if (start) buffer.append(startOption);
+            return buffer.append(newline);
         }
     }
 
@@ -310,13 +524,82 @@ public abstract class GdbMiWriter
         return new GdbMiExecRunWriter();
     }
 
+    /**
+     * GDB/MI stepping message writer: {@code exec-finish}, {@code exec-next} or {@code exec-step}.
+     */
+
+    public static final class GdbMiExecStepWriter extends GdbMiWriter
+    {
+        private static final byte[] reverseOption = GdbMiBuffer.ascii(" --reverse");
+
+        private final byte[] operation;
+
+        private boolean reverse = false;
+
+        GdbMiExecStepWriter (String message) { this.operation = GdbMiBuffer.ascii("-" + message); }
+
+        @Override
+        public GdbMiExecStepWriter context (int value)
+        {
+            context = value;
+            return this;
+        }
+
+        public GdbMiExecStepWriter reverse ()
+        {
+            reverse = true;
+            return this;
+        }
+
+        @Override
+        public GdbMiBuffer write (GdbMiBuffer buffer)
+        {
+            operation(buffer, operation);
+            if (reverse) buffer.append(reverseOption);
+            return buffer.append(newline);
+        }
+    }
+
+    /**
+     * GDB/MI {@code exec-finish} message writer.
+     *
+     * @return new message writer
+     */
+
+    public static GdbMiExecStepWriter execFinish ()
+    {
+        return new GdbMiExecStepWriter("exec-finish");
+    }
+
+    /**
+     * GDB/MI {@code exec-next} message writer.
+     *
+     * @return new message writer
+     */
+
+    public static GdbMiExecStepWriter execNext ()
+    {
+        return new GdbMiExecStepWriter("exec-next");
+    }
+
+    /**
+     * GDB/MI {@code exec-step} message writer.
+     *
+     * @return new message writer
+     */
+
+    public static GdbMiExecStepWriter execStep ()
+    {
+        return new GdbMiExecStepWriter("exec-step");
+    }
+
     /**
      * GDB/MI {@code file-exec-file} message writer.
      */
 
     public static final class GdbMiFileExecFileWriter extends GdbMiWriter
     {
-        private String context = "";
+        private static final byte[] operation = GdbMiBuffer.ascii("-file-exec-file ");
 
         private String path = "";
 
@@ -325,7 +608,7 @@ public abstract class GdbMiWriter
         @Override
         public GdbMiFileExecFileWriter context (int value)
         {
-            this.context = Integer.toString(value, 10);
+            this.context = value;
             return this;
         }
 
@@ -336,12 +619,10 @@ public abstract class GdbMiWriter
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            Objects.requireNonNull(writer);
-            final var message = String.format("%s-file-exec-file %s\n", context, path);
-            writer.write(message);
-            return writer;
+            Objects.requireNonNull(path);
+            return operation(buffer, operation).argument(path).append(newline);
         }
     }
 
@@ -353,14 +634,16 @@ public abstract class GdbMiWriter
 
     public static final class GdbMiGdbSetWriter extends GdbMiWriter
     {
-        private String context = "";
+        private static final byte[] operation = GdbMiBuffer.ascii("-gdb-set ");
+
+        private String name = null;
 
-        private String args = null;
+        private String value = null;
 
         @Override
         public GdbMiGdbSetWriter context (int value)
         {
-            this.context = Integer.toString(value, 10);
+            this.context = value;
             return this;
         }
 
@@ -368,17 +651,17 @@ public abstract class GdbMiWriter
         {
             Objects.requireNonNull(name);
             Objects.requireNonNull(value);
-            args = name + ' ' + value;
+            this.name = name;
+            this.value = value;
             return this;
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            Objects.requireNonNull(writer);
-            final var message = String.format("%s-gdb-set %s\n", context, args);
-            writer.write(message);
-            return writer;
+            Objects.requireNonNull(name);
+            // variable names and values are words of the set command, as typed on the console
+            return operation(buffer, operation).append(name).append(space).append(value).append(newline);
         }
     }
 
@@ -395,9 +678,9 @@ public abstract class GdbMiWriter
 
     public static final class GdbMiInterpreterExecWriter extends GdbMiWriter
     {
-        private String[] command = { };
+        private static final byte[] operation = GdbMiBuffer.ascii("-interpreter-exec ");
 
-        private String context = "";
+        private String[] command = { };
 
         private String interpreter = "console";
 
@@ -412,7 +695,7 @@ public abstract class GdbMiWriter
         @Override
         public GdbMiInterpreterExecWriter context (int value)
         {
-            this.context = Integer.toString(value, 10);
+            this.context = value;
             return this;
         }
 
@@ -423,12 +706,14 @@ public abstract class GdbMiWriter
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
+        public GdbMiBuffer write (GdbMiBuffer buffer)
         {
-            Objects.requireNonNull(writer);
-            final var message = String.format("%s-interpreter-exec %s \"%s\"\n", context, interpreter, String.join(" ", command));
-            writer.write(message);
-            return writer;
+            operation(buffer, operation).argument(interpreter).append(space).append((byte) '"');
+            for (int i = 0; i != command.length; ++i) {
+                if (i != 0) buffer.append(space);
+                buffer.escaped(command[i]);
+            }
+            return buffer.append((byte) '"').append(newline);
         }
     }
 
@@ -456,27 +741,183 @@ public abstract class GdbMiWriter
         return new GdbMiInterpreterExecWriter().interpreter(interpreter).command(command);
     }
 
+    /**
+     * GDB/MI {@code stack-list-frames} message writer.
+     */
+
+    public static final class GdbMiStackListFramesWriter extends GdbMiWriter
+    {
+        private static final byte[] operation = GdbMiBuffer.ascii("-stack-list-frames");
+
+        private static final byte[] threadOption = GdbMiBuffer.ascii(" --thread ");
+
+        private int thread = -1;
+
+        private int low = -1;
+
+        private int high = -1;
+
+        GdbMiStackListFramesWriter () { }
+
+        @Override
+        public GdbMiStackListFramesWriter context (int value)
+        {
+            context = value;
+            return this;
+        }
+
+        public GdbMiStackListFramesWriter range (int low, int high)
+        {
+            if (low < 0 || high < low) throw new IllegalArgumentException("invalid frame range");
+            this.low = low;
+            this.high = high;
+            return this;
+        }
+
+        public GdbMiStackListFramesWriter thread (int value)
+        {
+            if (value < 0) throw new IllegalArgumentException("thread must not be negative");
+            thread = value;
+            return this;
+        }
+
+        @Override
+        public GdbMiBuffer write (GdbMiBuffer buffer)
+        {
+            operation(buffer, operation);
+            if (thread >= 0) buffer.append(threadOption).append(thread);
+            if (low >= 0) buffer.append(space).append(low).append(space).append(high);
+            return buffer.append(newline);
+        }
+
+        @Override
+        public Object key ()
+        {
+            return Arrays.asList(operation, thread, low, high);
+        }
+    }
+
+    /**
+     * GDB/MI {@code stack-list-frames} message writer.
+     *
+     * @return new message writer
+     */
+
+    public static GdbMiStackListFramesWriter stackListFrames ()
+    {
+        return new GdbMiStackListFramesWriter();
+    }
+
+    /**
+     * GDB/MI {@code stack-list-locals} message writer.
+     */
+
+    public static final class GdbMiStackListLocalsWriter extends GdbMiWriter
+    {
+        private static final byte[] operation = GdbMiBuffer.ascii("-stack-list-locals");
+
+        private static final byte[] threadOption = GdbMiBuffer.ascii(" --thread ");
+
+        private static final byte[] frameOption = GdbMiBuffer.ascii(" --frame ");
+
+        private static final byte[] simpleValues = GdbMiBuffer.ascii(" --simple-values");
+
+        private static final byte[] allValues = GdbMiBuffer.ascii(" --all-values");
+
+        private static final byte[] noValues = GdbMiBuffer.ascii(" --no-values");
+
+        private byte[] values = simpleValues;
+
+        private int thread = -1;
+
+        private int frame = -1;
+
+        GdbMiStackListLocalsWriter () { }
+
+        @Override
+        public GdbMiStackListLocalsWriter context (int value)
+        {
+            context = value;
+            return this;
+        }
+
+        public GdbMiStackListLocalsWriter all ()
+        {
+            values = allValues;
+            return this;
+        }
+
+        public GdbMiStackListLocalsWriter frame (int thread, int frame)
+        {
+            if (thread < 0 || frame < 0) throw new IllegalArgumentException("thread and frame must not be negative");
+            this.thread = thread;
+            this.frame = frame;
+            return this;
+        }
+
+        public GdbMiStackListLocalsWriter names ()
+        {
+            values = noValues;
+            return this;
+        }
+
+        @Override
+        public GdbMiBuffer write (GdbMiBuffer buffer)
+        {
+            operation(buffer, operation);
+            if (thread >= 0) buffer.append(threadOption).append(thread).append(frameOption).append(frame);
+            return buffer.append(values).append(newline);
+        }
+
+        @Override
+        public Object key ()
+        {
+            return Arrays.asList(operation, thread, frame, values);
+        }
+    }
+
+    /**
+     * GDB/MI {@code stack-list-locals} message writer.
+     *
+     * @return new message writer
+     */
+
+    public static GdbMiStackListLocalsWriter stackListLocals ()
+    {
+        return new GdbMiStackListLocalsWriter();
+    }
+
     /**
      * GDB/MI {@code target-select} message writer.
      */
 
     public static final class GdbMiTargetSelectWriter extends GdbMiWriter
     {
-        private String context = "";
+        private static final byte[] operation = GdbMiBuffer.ascii("-target-select ");
+
+        private static final byte[] execTarget = GdbMiBuffer.ascii("exec ");
+
+        private static final byte[] remoteTcpTarget = GdbMiBuffer.ascii("remote tcp:");
+
+        private String path = null;
+
+        private String host = null;
 
-        private String args = "";
+        private String port = null;
 
         @Override
         public GdbMiTargetSelectWriter context (int value)
         {
-            this.context = Integer.toString(value, 10);
+            this.context = value;
             return this;
         }
 
         public GdbMiTargetSelectWriter exec (String value)
         {
             Objects.requireNonNull(value);
-            args = "exec " + value;
+            path = value;
+            host = null;
+            port = null;
             return this;
         }
 
@@ -484,17 +925,21 @@ public abstract class GdbMiWriter
         {
             Objects.requireNonNull(host);
             Objects.requireNonNull(port);
-            args = "remote tcp:" + host + ':' + port;
+            this.path = null;
+            this.host = host;
+            this.port = port;
             return this;
         }
 
         @Override
-        public Writer write (Writer writer) throws IOException
-        {
-            Objects.requireNonNull(writer);
-            final var message = String.format("%s-target-select %s\n", context, args);
-            writer.write(message);
-            return writer;
+        public GdbMiBuffer write (GdbMiBuffer buffer)
+        {
+            operation(buffer, operation);
+            if (path != null)
+                buffer.append(execTarget).argument(path);
+            else if (host != null)
+                buffer.append(remoteTcpTarget).append(host).append((byte) ':').append(port);
+            return buffer.append(newline);
         }
     }
 
@@ -49,15 +49,7 @@ public class GdbInteroperabilityTest
             assertThat(response1.content().type(), equalTo("running"));
 
             final CompletableFuture<GdbMiMessage> future = new CompletableFuture<>();
-            final var handler = new GdbHandler() {
-                @Override public void handle (Gdb gdb, GdbMiMessage event) {
-                    if (event.type() != GdbMiType.Execute) return;
-                    final var record = (GdbMiMessage.RecordMessage) event;
-                    if (! record.content().type().contentEquals("stopped")) return;
-                    future.complete(event);
-                }
-            };
-            gdb.handle(handler);
+            gdb.handle(GdbMiType.Execute, "stopped", (ignored, event) -> future.complete(event));
 
             final var response2 = gdb.breakWatch("argc").read().go()
                 .get(1000, TimeUnit.MILLISECONDS);
@@ -142,6 +134,31 @@ public class GdbInteroperabilityTest
         }
     }
 
+    @Test
+    public void goUntilStopped () throws Exception
+    {
+        assumeTrue(Files.exists(Paths.get(target)));
+
+        try (var gdb = Gdb.builder().command(path).start())
+        {
+            final var response0 = gdb.fileExecAndSymbols(target).go()
+                .get(1000, TimeUnit.MILLISECONDS);
+            assertThat(response0.content().type(), equalTo("done"));
+
+            final var response1 = gdb.execRun().stopAtMain().goUntilStopped()
+                .get(1000, TimeUnit.MILLISECONDS);
+            assertThat(response1.content().type(), equalTo("stopped"));
+
+            final var response2 = gdb.breakWatch("argc").read().go()
+                .get(1000, TimeUnit.MILLISECONDS);
+            assertThat(response2.content().type(), equalTo("done"));
+
+            final var response3 = gdb.execContinue().goUntilStopped()
+                .get(1000, TimeUnit.MILLISECONDS);
+            assertThat(response3.content().type(), equalTo("stopped"));
+        }
+    }
+
     @Test
     public void interpreterExec () throws Exception
     {
@@ -153,6 +170,21 @@ public class GdbInteroperabilityTest
         }
     }
 
+    @Test
+    public void reactor () throws Exception
+    {
+        try (var reactor = GdbReactor.builder().threads(1).start();
+             var gdb0 = Gdb.builder().command(path).reactor(reactor).start();
+             var gdb1 = Gdb.builder().command(path).reactor(reactor).start())
+        {
+            final var response0 = gdb0.gdbSet("width", "0").go();
+            final var response1 = gdb1.gdbSet("width", "0").go();
+            assertThat(response0.get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+            assertThat(response1.get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+            assertThat(reactor.sessions(), equalTo(2));
+        }
+    }
+
     @Test
     public void smoke () throws Exception
     {
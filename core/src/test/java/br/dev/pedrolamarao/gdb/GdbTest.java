@@ -0,0 +1,745 @@
+package br.dev.pedrolamarao.gdb;
+
+import br.dev.pedrolamarao.gdb.mi.GdbMiMessage;
+import br.dev.pedrolamarao.gdb.mi.GdbMiProperties;
+import br.dev.pedrolamarao.gdb.mi.GdbMiType;
+import br.dev.pedrolamarao.gdb.mi.GdbMiVisitor;
+import br.dev.pedrolamarao.gdb.mi.GdbMiWriter;
+import lombok.var;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GdbTest
+{
+    @Test
+    public void admission () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .latency(50, TimeUnit.MILLISECONDS)
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(Gdb.builder().inflight(2), script))
+        {
+            final var responses = new ArrayList<Future<GdbMiMessage.RecordMessage>>();
+            for (int i = 0; i != 6; ++i) responses.add(gdb.gdbSet("width", "0").go());
+            assertThat(gdb.admission().inflight(), equalTo(2));
+            assertThat(gdb.admission().queued(), equalTo(4));
+
+            final var rejected = gdb.gdbSet("width", "0").failFast(true).go();
+            final var e = assertThrows(ExecutionException.class, () -> rejected.get(1000, TimeUnit.MILLISECONDS));
+            assertThat(e.getCause(), instanceOf(RejectedExecutionException.class));
+
+            for (var response : responses) {
+                assertThat(response.get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+            }
+            // released after completing
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (gdb.admission().inflight() != 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertThat(gdb.admission().inflight(), equalTo(0));
+            assertThat(gdb.admission().queued(), equalTo(0));
+            assertThat(gdb.admission().admitted(), equalTo(6L));
+            assertThat(gdb.admission().rejected(), equalTo(1L));
+            assertTrue(gdb.admission().maxWaitNanos() > 0);
+        }
+    }
+
+    @Test
+    public void admissionDeadline () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .latency(1, TimeUnit.MILLISECONDS)
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(Gdb.builder().inflight(2), script))
+        {
+            // deadlines race completions and admissions
+            final var responses = new ArrayList<Future<GdbMiMessage.RecordMessage>>();
+            for (int i = 0; i != 200; ++i) responses.add(gdb.gdbSet("width", "0").deadline(i % 4, TimeUnit.MILLISECONDS).go());
+            for (var response : responses) {
+                try { response.get(1000, TimeUnit.MILLISECONDS); }
+                catch (ExecutionException e) { assertThat(e.getCause(), instanceOf(TimeoutException.class)); }
+            }
+            // every slot released
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (gdb.admission().inflight() != 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertThat(gdb.admission().inflight(), equalTo(0));
+            assertThat(gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+        }
+    }
+
+    @Test
+    public void asyncHandler () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        final var started = new CountDownLatch(1);
+        final var release = new CountDownLatch(1);
+        final var handled = new ConcurrentLinkedQueue<GdbMiMessage>();
+        final GdbHandler slow = (gdb, message) -> {
+            started.countDown();
+            try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            handled.add(message);
+        };
+        final var handler = GdbAsyncHandler.builder(slow)
+            .capacity(4)
+            .overflow(GdbAsyncHandler.Overflow.DROP_OLDEST)
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(script, null, handler))
+        {
+            // banner record in the handler, then prompt and one prompt per command
+            assertTrue(started.await(1000, TimeUnit.MILLISECONDS));
+            for (int i = 0; i != 10; ++i) {
+                final var response = gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS);
+                assertThat(response.content().type(), equalTo("done"));
+            }
+            // the last prompt follows the last result
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (handler.dropped() != 7 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertThat(handler.dropped(), equalTo(7L));
+            release.countDown();
+            while (handled.size() != 5 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertThat(handled.size(), equalTo(5));
+            // the banner record was taken before the queue overflowed
+            assertThat(handled.peek().type(), equalTo(GdbMiType.Notify));
+        }
+    }
+
+    @Test
+    public void asyncHandlerRejected () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        final var reject = new AtomicBoolean(true);
+        final var handled = new AtomicInteger();
+        final var handler = GdbAsyncHandler.builder((gdb, message) -> handled.incrementAndGet())
+            .executor(task -> {
+                if (reject.get()) throw new RejectedExecutionException("rejected");
+                task.run();
+            })
+            .capacity(1)
+            .overflow(GdbAsyncHandler.Overflow.BLOCK)
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(script, null, handler))
+        {
+            // rejected messages are dropped, and the reader is never blocked
+            for (int i = 0; i != 4; ++i) {
+                final var response = gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS);
+                assertThat(response.content().type(), equalTo("done"));
+            }
+            assertThat(handler.pending(), equalTo(0));
+            assertTrue(handler.dropped() > 0);
+            assertThat(handled.get(), equalTo(0));
+
+            // draining resumes once the executor accepts
+            reject.set(false);
+            gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS);
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (handled.get() == 0 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertTrue(handled.get() > 0);
+        }
+    }
+
+    @Test
+    public void batch () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .reply("-break-insert", "^done,bkpt={number=\"1\",type=\"breakpoint\"}")
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var batch = gdb.batch();
+            for (int i = 0; i != 1000; ++i) batch.add(gdb.breakInsertAtSymbol("f" + i));
+            batch.add(gdb.gdbSet("width", "0"));
+            final var responses = batch.submit().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(responses.size(), equalTo(1001));
+            assertThat(responses.get(0).content().type(), equalTo("done"));
+            assertThat(batch.futures().size(), equalTo(1001));
+            assertThat(batch.futures().get(1000).get().content().properties().size(), equalTo(0));
+            assertThat(gdb.batch().submit().get().size(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void command () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var response = gdb.gdbSet("width", "0").go()
+                .get(1000, TimeUnit.MILLISECONDS);
+            assertThat(response.content().type(), equalTo("done"));
+        }
+    }
+
+    @Test
+    public void coalesce () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .latency(50, TimeUnit.MILLISECONDS)
+            .reply("-stack-list-frames", "^done,stack=[frame={level=\"0\",func=\"main\"}]")
+            .reply("-stack-list-locals", "^done,locals=[]", "*stopped,reason=\"signal-received\"")
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(Gdb.builder().coalesce(true), script))
+        {
+            final var stopped = new CompletableFuture<GdbMiMessage>();
+            gdb.handle(GdbMiType.Execute, "stopped", (ignored, message) -> stopped.complete(message));
+
+            // identical queries share one round trip, outstanding or completed
+            final var first = gdb.stackListFrames().go();
+            final var second = gdb.stackListFrames().go();
+            assertTrue(second.cancel(false));
+            final var frames = first.get(1000, TimeUnit.MILLISECONDS);
+            assertThat(frames.content().type(), equalTo("done"));
+            assertThat(gdb.stackListFrames().go().get(1000, TimeUnit.MILLISECONDS), sameInstance(frames));
+            assertThat(gdb.stackListFrames().thread(1).go().get(1000, TimeUnit.MILLISECONDS), not(sameInstance(frames)));
+
+            // concurrent identical queries share one round trip
+            final var start = new CountDownLatch(1);
+            final var concurrent = new ArrayList<CompletableFuture<Future<GdbMiMessage.RecordMessage>>>();
+            for (int i = 0; i != 8; ++i) {
+                concurrent.add(CompletableFuture.supplyAsync(() -> {
+                    try { start.await(); return gdb.stackListFrames().range(0, 1).go(); }
+                    catch (Exception e) { throw new RuntimeException(e); }
+                }));
+            }
+            start.countDown();
+            final var range = concurrent.get(0).get(1000, TimeUnit.MILLISECONDS).get(1000, TimeUnit.MILLISECONDS);
+            for (var future : concurrent) {
+                assertThat(future.get(1000, TimeUnit.MILLISECONDS).get(1000, TimeUnit.MILLISECONDS), sameInstance(range));
+            }
+
+            // stop invalidates
+            gdb.stackListLocals().go().get(1000, TimeUnit.MILLISECONDS);
+            stopped.get(1000, TimeUnit.MILLISECONDS);
+            final var fresh = gdb.stackListFrames().go().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(fresh, not(sameInstance(frames)));
+
+            // commands other than queries invalidate
+            gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(gdb.stackListFrames().go().get(1000, TimeUnit.MILLISECONDS), not(sameInstance(fresh)));
+        }
+
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var frames = gdb.stackListFrames().go().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(gdb.stackListFrames().go().get(1000, TimeUnit.MILLISECONDS), not(sameInstance(frames)));
+        }
+    }
+
+    @Test
+    public void commandFailure () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        final var gdb = GdbFakeProcess.gdb(script, null);
+        gdb.close();
+        final var response = gdb.gdbSet("width", "0").go();
+        final var e = assertThrows(ExecutionException.class, () -> response.get(1000, TimeUnit.MILLISECONDS));
+        assertThat(e.getCause(), instanceOf(IOException.class));
+    }
+
+    @Test
+    public void commandVisitor () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .reply("-break-insert", "^done,bkpt={number=\"1\",type=\"breakpoint\"}")
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var keys = new ArrayList<String>();
+            final var visitor = new GdbMiVisitor() {
+                @Override public boolean key (String name) { keys.add(name); return true; }
+            };
+            final var response = gdb.breakInsertAtSymbol("main").go(visitor)
+                .get(1000, TimeUnit.MILLISECONDS);
+            assertThat(response.content().type(), equalTo("done"));
+            assertThat(keys, contains("bkpt", "number", "type"));
+        }
+    }
+
+    @Test
+    public void concurrent () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var responses = new ConcurrentLinkedQueue<Future<GdbMiMessage.RecordMessage>>();
+            final var threads = new ArrayList<Thread>();
+            for (int i = 0; i != 8; ++i)
+            {
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int j = 0; j != 250; ++j) responses.add(gdb.gdbSet("width", Integer.toString(j)).go());
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (var thread : threads) thread.join();
+
+            assertThat(responses.size(), equalTo(2000));
+            for (var response : responses) {
+                assertThat(response.get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+            }
+        }
+    }
+
+    @Test
+    public void deadline () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .latency(200, TimeUnit.MILLISECONDS)
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var expired = gdb.gdbSet("width", "0").deadline(20, TimeUnit.MILLISECONDS).go();
+            final var e = assertThrows(ExecutionException.class, () -> expired.get(1000, TimeUnit.MILLISECONDS));
+            assertThat(e.getCause(), instanceOf(TimeoutException.class));
+            assertThat(gdb.pending(), equalTo(0));
+
+            final var cancelled = gdb.gdbSet("width", "0").go();
+            assertTrue(cancelled.cancel(false));
+            assertThat(gdb.pending(), equalTo(0));
+
+            final var response = gdb.gdbSet("width", "0").deadline(1, TimeUnit.SECONDS).go();
+            assertThat(response.get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+            assertThat(gdb.pending(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void exit () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var response = gdb.gdbExit().go()
+                .get(1000, TimeUnit.MILLISECONDS);
+            assertThat(response.content().type(), equalTo("exit"));
+            assertTrue(gdb.waitFor(1000, TimeUnit.MILLISECONDS));
+            assertThat(gdb.exitValue(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void handler () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        final CompletableFuture<GdbMiMessage> notify = new CompletableFuture<>();
+        final CompletableFuture<GdbMiMessage> prompt = new CompletableFuture<>();
+        final GdbHandler handler = (gdb, message) -> {
+            if (message.type() == GdbMiType.Notify) notify.complete(message);
+            if (message.type() == GdbMiType.Prompt) prompt.complete(message);
+        };
+        try (var ignored = GdbFakeProcess.gdb(script, null, handler))
+        {
+            final var record = (GdbMiMessage.RecordMessage) notify.get(1000, TimeUnit.MILLISECONDS);
+            assertThat(record.content().type(), equalTo("thread-group-added"));
+            prompt.get(1000, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test
+    public void handlerFailure () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        final var failures = new AtomicInteger();
+        final GdbHandler handler = (gdb, message) -> {
+            failures.incrementAndGet();
+            throw new RuntimeException("handler failure");
+        };
+        try (var reactor = GdbReactor.builder().threads(1).start())
+        {
+            // reader thread, then reactor
+            for (var source : new GdbReactor[] { null, reactor })
+            {
+                try (var gdb = GdbFakeProcess.gdb(script, source, handler))
+                {
+                    for (int i = 0; i != 4; ++i) {
+                        final var response = gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS);
+                        assertThat(response.content().type(), equalTo("done"));
+                    }
+                }
+            }
+        }
+        assertTrue(failures.get() > 0);
+    }
+
+    @Test
+    public void interrupt () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .reply("-exec-interrupt", "^done", "*stopped,reason=\"signal-received\",signal-name=\"SIGINT\"")
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var stopped = gdb.interrupt().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(stopped.content().type(), equalTo("stopped"));
+            assertThat(stopped.content().properties().get("signal-name", String.class), equalTo("SIGINT"));
+        }
+
+        final var refusal = GdbFakeScript.builder()
+            .reply("-exec-interrupt", "^error,msg=\"The program is not being run.\"")
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(refusal, null))
+        {
+            final var stop = gdb.interrupt();
+            final var e = assertThrows(ExecutionException.class, () -> stop.get(1000, TimeUnit.MILLISECONDS));
+            assertThat(e.getCause().getMessage(), equalTo("gdb: failure: The program is not being run."));
+        }
+    }
+
+    @Test
+    public void pending () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var pending = new GdbPending(64);
+
+            // one command outlives many turns of the ring
+            final var stuck = gdb.new GdbCommandFuture(0, null, 0);
+            pending.put(stuck);
+            for (int token = 1; token != 10000; ++token)
+            {
+                final var future = gdb.new GdbCommandFuture(token, null, 0);
+                pending.put(future);
+                assertThat(pending.take(token), sameInstance(future));
+            }
+            assertThat(pending.capacity(), equalTo(64));
+            assertThat(pending.size(), equalTo(1));
+
+            // more in flight than slots grows; lookups survive removal out of order
+            final var futures = new ArrayList<Gdb.GdbCommandFuture>();
+            for (int token = 10000; token != 10100; ++token)
+            {
+                final var future = gdb.new GdbCommandFuture(token, null, 0);
+                futures.add(future);
+                pending.put(future);
+            }
+            assertThat(pending.capacity(), equalTo(128));
+            for (int i = 0; i < futures.size(); i += 2) pending.remove(futures.get(i));
+            for (int i = 1; i < futures.size(); i += 2) assertThat(pending.take(futures.get(i).context), sameInstance(futures.get(i)));
+            assertThat(pending.take(0), sameInstance(stuck));
+            assertThat(pending.size(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void pool () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .reply("-interpreter-exec", "^error,msg=\"The program is not being run.\"")
+            .build();
+        final var started = new AtomicInteger();
+        final Callable<Gdb> factory = () -> {
+            started.incrementAndGet();
+            return GdbFakeProcess.gdb(script, null);
+        };
+
+        try (var pool = GdbPool.builder(factory).executable("/tmp/a.out").size(2).start())
+        {
+            assertThat(started.get(), equalTo(2));
+            assertThat(pool.idle(), equalTo(2));
+
+            final var first = pool.lease().get(1000, TimeUnit.MILLISECONDS);
+            final var second = pool.lease().get(1000, TimeUnit.MILLISECONDS);
+            final var third = pool.lease();
+            assertFalse(third.isDone());
+
+            // returned sessions are reset and leased again, without handlers registered during the lease
+            final var gdb = first.gdb();
+            final var handled = new AtomicInteger();
+            gdb.handle((ignored, message) -> handled.incrementAndGet());
+            first.close();
+            assertThrows(IllegalStateException.class, first::gdb);
+            assertThat(third.get(1000, TimeUnit.MILLISECONDS).gdb(), sameInstance(gdb));
+            assertThat(started.get(), equalTo(2));
+            final var before = handled.get();
+            gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(handled.get(), equalTo(before));
+
+            // discarded sessions are replaced
+            second.discard();
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (pool.idle() != 1 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertThat(pool.idle(), equalTo(1));
+            assertThat(pool.evicted(), equalTo(1L));
+            assertThat(started.get(), equalTo(3));
+        }
+
+        // idle sessions are evicted at the end of their lifetime
+        started.set(0);
+        try (var pool = GdbPool.builder(factory).lifetime(50, TimeUnit.MILLISECONDS).start())
+        {
+            final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+            while (started.get() < 3 && System.nanoTime() < deadline) Thread.sleep(1);
+            assertThat(started.get(), greaterThanOrEqualTo(3));
+            assertThat(pool.lease().get(1000, TimeUnit.MILLISECONDS).gdb().pending(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void priority () throws Exception
+    {
+        final var release = new CountDownLatch(1);
+        final var output = new ByteArrayOutputStream() {
+            @Override public void flush () {
+                try { release.await(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+            }
+        };
+        final var stage = new GdbWriterStage(output);
+
+        // first writer blocks in flush, while commands queue behind it
+        final var first = new CompletableFuture<Void>();
+        final var writer = new Thread(() -> stage.submit(GdbMiWriter.gdbSet().pair("width", "0").context(0), first));
+        writer.start();
+        while (output.size() == 0) Thread.sleep(1);
+        for (int i = 1; i != 4; ++i) stage.submit(GdbMiWriter.gdbSet().pair("width", "0").context(i), new CompletableFuture<>());
+        stage.submitUrgent(GdbMiWriter.execInterrupt().context(4), new CompletableFuture<>());
+        release.countDown();
+        writer.join(1000);
+
+        // the first writer writes one chunk, then hands over the rest
+        final var expected = "0-gdb-set width 0\n4-exec-interrupt\n1-gdb-set width 0\n2-gdb-set width 0\n3-gdb-set width 0\n";
+        final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        while (output.size() < expected.length() && System.nanoTime() < deadline) Thread.sleep(1);
+        assertThat(output.toString("UTF-8"), equalTo(expected));
+    }
+
+    @Test
+    public void reactor () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .latency(1, TimeUnit.MILLISECONDS)
+            .build();
+        try (var reactor = GdbReactor.builder().threads(2).start())
+        {
+            final var instances = new ArrayList<Gdb>();
+            final var responses = new ArrayList<Future<GdbMiMessage.RecordMessage>>();
+            try
+            {
+                for (int i = 0; i != 8; ++i) instances.add(GdbFakeProcess.gdb(script, reactor));
+                for (var gdb : instances) {
+                    for (int i = 0; i != 16; ++i) responses.add(gdb.gdbSet("width", "0").go());
+                }
+                for (var response : responses) {
+                    assertThat(response.get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+                }
+                assertThat(reactor.sessions(), equalTo(8));
+            }
+            finally
+            {
+                instances.forEach(Gdb::close);
+            }
+        }
+
+        // closing ends every session, live processes included
+        final var reactor = GdbReactor.builder().threads(1).spins(0).start();
+        try (var gdb = GdbFakeProcess.gdb(script, reactor))
+        {
+            assertThat(gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+            reactor.close();
+            assertThat(gdb.onExit().get(1000, TimeUnit.MILLISECONDS), sameInstance(gdb));
+            assertThat(reactor.sessions(), equalTo(0));
+        }
+    }
+
+    @Test
+    public void ring () throws Exception
+    {
+        final var script = GdbFakeScript.builder().build();
+        try (var ring = GdbRing.builder().size(4).build())
+        {
+            final var sequences = new ConcurrentLinkedQueue<Long>();
+            final var prompts = new CountDownLatch(21);
+            ring.consume((event, sequence, last) -> {
+                sequences.add(sequence);
+                if (event.type() == GdbMiType.Prompt) prompts.countDown();
+            }, GdbRing.Wait.PARK);
+            try (var gdb = GdbFakeProcess.gdb(script, null, ring))
+            {
+                for (int i = 0; i != 20; ++i) {
+                    assertThat(gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+                }
+                assertTrue(prompts.await(1000, TimeUnit.MILLISECONDS));
+                assertThat(ring.cursor(), equalTo(21L));
+                var expected = 0L;
+                for (var sequence : sequences) assertThat(sequence, equalTo(expected++));
+            }
+        }
+    }
+
+    @Test
+    public void stop () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .reply("-exec-continue", "^running", "*running,thread-id=\"all\"", "*stopped,reason=\"breakpoint-hit\",bkptno=\"1\"")
+            .reply("-exec-next", "^error,msg=\"The program is not being run.\"")
+            .reply("-exec-finish", "*stopped,reason=\"breakpoint-hit\",bkptno=\"1\"", "^running", "*running,thread-id=\"all\"", "*stopped,reason=\"function-finished\"")
+            .reply("-exec-step", "^running", "*running,thread-id=\"all\"")
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final var stopped = gdb.execContinue().goUntilStopped().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(stopped.content().type(), equalTo("stopped"));
+            assertThat(stopped.content().properties().get("reason", String.class), equalTo("breakpoint-hit"));
+
+            final var refused = gdb.execNext().goUntilStopped();
+            final var e0 = assertThrows(ExecutionException.class, () -> refused.get(1000, TimeUnit.MILLISECONDS));
+            assertThat(e0.getCause().getMessage(), equalTo("gdb: failure: The program is not being run."));
+
+            // a stop ahead of the result belongs to some earlier command
+            final var fresh = gdb.execFinish().goUntilStopped().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(fresh.content().properties().get("reason", String.class), equalTo("function-finished"));
+
+            final var step = gdb.execStep();
+            step.deadline(50, TimeUnit.MILLISECONDS);
+            final var running = step.goUntilStopped();
+            final var e1 = assertThrows(ExecutionException.class, () -> running.get(1000, TimeUnit.MILLISECONDS));
+            assertThat(e1.getCause(), instanceOf(TimeoutException.class));
+        }
+    }
+
+    @Test
+    public void subscriptions () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .reply("-exec-continue", "^running", "*running,thread-id=\"all\"", "*stopped,reason=\"end-stepping-range\"")
+            .build();
+        final var any = new ConcurrentLinkedQueue<String>();
+        final var execute = new ConcurrentLinkedQueue<String>();
+        final var stopped = new ConcurrentLinkedQueue<String>();
+        final var prompts = new CountDownLatch(2);
+        final var builder = Gdb.builder()
+            .handler((gdb, message) -> any.add(message.type().name()))
+            .handler(GdbMiType.Execute, (gdb, message) -> execute.add(((GdbMiMessage.RecordMessage) message).content().type()))
+            .handler(GdbMiType.Execute, "stopped", (gdb, message) -> stopped.add(((GdbMiMessage.RecordMessage) message).content().type()))
+            .handler(GdbMiType.Prompt, (gdb, message) -> prompts.countDown());
+        try (var gdb = GdbFakeProcess.gdb(builder, script))
+        {
+            assertThat(gdb.execContinue().go().get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("running"));
+            assertTrue(prompts.await(1000, TimeUnit.MILLISECONDS));
+            assertThat(any, contains("Notify", "Prompt", "Execute", "Execute", "Prompt"));
+            assertThat(execute, contains("running", "stopped"));
+            assertThat(stopped, contains("stopped"));
+
+            // unregistered handlers see nothing more
+            final var after = new ConcurrentLinkedQueue<String>();
+            final GdbHandler handler = (ignored, message) -> after.add(message.type().name());
+            gdb.handle(handler);
+            gdb.handle(GdbMiType.Prompt, handler);
+            assertTrue(gdb.unhandle(handler));
+            assertFalse(gdb.unhandle(handler));
+            gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS);
+            assertThat(after.size(), equalTo(0));
+        }
+        assertThrows(IllegalArgumentException.class, () -> Gdb.builder().handler(GdbMiType.Result, (gdb, message) -> { }));
+    }
+
+    @Test
+    public void termination () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .latency(500, TimeUnit.MILLISECONDS)
+            .build();
+        final var gdb = GdbFakeProcess.gdb(script, null);
+        final var response = gdb.gdbSet("width", "0").go();
+        gdb.close();
+        final var e = assertThrows(ExecutionException.class, () -> response.get(100, TimeUnit.MILLISECONDS));
+        assertThat(e.getCause(), instanceOf(IOException.class));
+        assertThat(gdb.onExit().get(1000, TimeUnit.MILLISECONDS), sameInstance(gdb));
+        assertThat(gdb.exitValue(), equalTo(137));
+        assertThat(gdb.pending(), equalTo(0));
+    }
+
+    @Test
+    public void transcript () throws Exception
+    {
+        final var transcript =
+            "=thread-group-added,id=\"i1\"\n" +
+            "(gdb) \n" +
+            "1-break-insert main\n" +
+            "1^done,bkpt={number=\"1\",type=\"breakpoint\",addr=\"0x0000000000001139\",func=\"main\"}\n" +
+            "(gdb) \n" +
+            "2-break-insert exit\n" +
+            "2^done,bkpt={number=\"2\",type=\"breakpoint\",addr=\"0x0000000000001030\",func=\"exit\"}\n" +
+            "(gdb) \n";
+        final var script = GdbFakeScript.builder()
+            .transcript(new StringReader(transcript))
+            .build();
+        try (var gdb = GdbFakeProcess.gdb(script, null))
+        {
+            final List<Long> addresses = new ArrayList<>();
+            for (var symbol : new String[] { "main", "exit", "abort" })
+            {
+                final var response = gdb.breakInsertAtSymbol(symbol).go()
+                    .get(1000, TimeUnit.MILLISECONDS);
+                final var bkpt = response.content().properties().get("bkpt", GdbMiProperties.class);
+                addresses.add(bkpt.getAddress("addr"));
+            }
+            assertThat(addresses, contains(0x1139L, 0x1030L, 0x1030L));
+        }
+    }
+
+    @Test
+    public void unreadable () throws Exception
+    {
+        final var script = GdbFakeScript.builder()
+            .reply("-gdb-set", "!garbage", "^done")
+            .build();
+        final var reported = new ConcurrentLinkedQueue<Throwable>();
+        final var previous = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> reported.add(e));
+        try (var reactor = GdbReactor.builder().threads(1).start())
+        {
+            // reader thread, then reactor
+            for (var source : new GdbReactor[] { null, reactor })
+            {
+                reported.clear();
+                try (var gdb = GdbFakeProcess.gdb(script, source))
+                {
+                    // unreadable lines are skipped and reported; the instance stays in step
+                    final var response = gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS);
+                    assertThat(response.content().type(), equalTo("done"));
+                    assertThat(gdb.gdbSet("width", "0").go().get(1000, TimeUnit.MILLISECONDS).content().type(), equalTo("done"));
+                    assertFalse(gdb.onExit().isDone());
+                    // reported after the rest of the chunk is read
+                    final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+                    while (reported.size() != 2 && System.nanoTime() < deadline) Thread.sleep(1);
+                    assertThat(reported.size(), equalTo(2));
+                    assertThat(reported.peek().getMessage(), equalTo("gdb: process output unreadable"));
+                }
+            }
+        }
+        finally
+        {
+            Thread.setDefaultUncaughtExceptionHandler(previous);
+        }
+    }
+}
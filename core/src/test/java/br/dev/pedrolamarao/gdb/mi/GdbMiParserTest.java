@@ -3,15 +3,22 @@ package br.dev.pedrolamarao.gdb.mi;
 import lombok.var;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
 
 import static br.dev.pedrolamarao.gdb.mi.GdbMiReader.readFinishRecordMessage;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class GdbMiParserTest
@@ -34,6 +41,179 @@ public class GdbMiParserTest
         }
     }
 
+    @Test
+    public void conversationFromStream () throws IOException
+    {
+        try (var stream = getClass().getResourceAsStream("/foo"))
+        {
+            assumeTrue(stream != null);
+
+            final var reader = GdbMiReader.fromStream(stream, UTF_8);
+
+            for (int i = 0, j = fooList.length; i != j; ++i)
+            {
+                final var message = reader.read();
+                assertThat("message " + i + ":", message, notNullValue());
+                assertThat("message " + i + ":", message.type(), equalTo(fooList[i]));
+            }
+        }
+    }
+
+    @Test
+    public void readFromStream () throws IOException
+    {
+        final var bytes = "123*event,foo=bar,meh={duh=\"hello w\u00f6rld\",esc=\"a\\\"b\"},list=[\"i1\",\"i2\"],empty=[],stack=[frame={level=\"0\"},frame={level=\"1\"}],none={}\n^done\n".getBytes(UTF_8);
+        final var reader = GdbMiReader.fromStream(new ByteArrayInputStream(bytes), UTF_8);
+
+        final var message = reader.read();
+        assertThat(message, notNullValue());
+        assertThat(message.type(), equalTo(GdbMiType.Execute));
+        assertThat(message.context(), equalTo(123));
+        assertThat(message.token(), equalTo(123));
+        final var record = ((GdbMiMessage.RecordMessage) message).content();
+        assertThat(record.type(), equalTo("event"));
+        assertThat(record.properties().get("foo", String.class), equalTo("bar"));
+        final var meh = record.properties().get("meh", GdbMiProperties.class);
+        assertThat(meh.get("duh", String.class), equalTo("hello w\u00f6rld"));
+        assertThat(meh.get("esc", String.class), equalTo("a\"b"));
+        assertThat(record.properties().get("list", GdbMiList.class).get(1, String.class), equalTo("i2"));
+        assertThat(record.properties().get("empty", GdbMiList.class).size(), equalTo(0));
+        assertThat(record.properties().get("stack", GdbMiList.class).get(1, GdbMiProperties.class).get("level", String.class), equalTo("1"));
+
+        final var done = reader.read();
+        assertThat(done, notNullValue());
+        assertThat(done.type(), equalTo(GdbMiType.Result));
+        assertThat(((GdbMiMessage.RecordMessage) done).content().type(), equalTo("done"));
+
+        assertThat(reader.read(), nullValue());
+    }
+
+    @Test
+    public void readFromStreamBlocks () throws IOException
+    {
+        try (var stream = getClass().getResourceAsStream("/target_remote"); var small = getClass().getResourceAsStream("/target_remote"))
+        {
+            assumeTrue(stream != null && small != null);
+
+            final var reader = GdbMiReader.fromStream(stream, UTF_8);
+            final var blocks = new GdbMiReader( new GdbMiByteCursor(small, 5) );
+
+            while (true)
+            {
+                final var expected = reader.read();
+                final var actual = blocks.read();
+                if (expected == null) { assertThat(actual, nullValue()); break; }
+                assertThat(actual, notNullValue());
+                assertThat(actual.toString(), equalTo(expected.toString()));
+            }
+        }
+    }
+
+    @Test
+    public void readIncremental () throws IOException
+    {
+        try (var stream = getClass().getResourceAsStream("/target_remote_warning"); var chunks = getClass().getResourceAsStream("/target_remote_warning"))
+        {
+            assumeTrue(stream != null && chunks != null);
+
+            final var expected = new ArrayList<String>();
+            final var reader = GdbMiReader.fromStream(stream, UTF_8);
+            for (var message = reader.read(); message != null; message = reader.read())
+                expected.add(message.toString());
+
+            final var actual = new ArrayList<String>();
+            final var incremental = GdbMiReader.incremental();
+            final var buffer = new byte[7];
+            for (int count = chunks.read(buffer); count != -1; count = chunks.read(buffer))
+                incremental.feed(ByteBuffer.wrap(buffer, 0, count), message -> actual.add(message.toString()));
+
+            assertThat(actual, equalTo(expected));
+            assertThat(incremental.pending(), equalTo(false));
+        }
+
+        final var incremental = GdbMiReader.incremental();
+        final var messages = new ArrayList<GdbMiMessage>();
+        assertThat(incremental.feed(ByteBuffer.wrap("12^done,value=\"4".getBytes(UTF_8)), messages::add), equalTo(0));
+        assertThat(incremental.pending(), equalTo(true));
+        assertThat(incremental.feed(ByteBuffer.wrap("2\"\n(gdb) \n~\"x".getBytes(UTF_8)), messages::add), equalTo(2));
+        assertThat(messages.get(0).context(), equalTo(12));
+        assertThat(((GdbMiMessage.RecordMessage) messages.get(0)).content().properties().getInt("value"), equalTo(42));
+        assertThat(messages.get(1).type(), equalTo(GdbMiType.Prompt));
+        assertThat(incremental.pending(), equalTo(true));
+
+        // unreadable lines are skipped, and reported after the following lines
+        final var recovering = GdbMiReader.incremental();
+        messages.clear();
+        final var chunk = ByteBuffer.wrap("1^done\n?bogus\n?again\n(gdb) \n=thread".getBytes(UTF_8));
+        final var e = assertThrows(RuntimeException.class, () -> recovering.feed(chunk, messages::add));
+        assertThat(e.getSuppressed().length, equalTo(1));
+        assertThat(messages.size(), equalTo(2));
+        assertThat(messages.get(0).context(), equalTo(1));
+        assertThat(messages.get(1).type(), equalTo(GdbMiType.Prompt));
+        assertThat(recovering.feed(ByteBuffer.wrap("-group-added,id=\"i1\"\n".getBytes(UTF_8)), messages::add), equalTo(1));
+        assertThat(messages.get(2).type(), equalTo(GdbMiType.Notify));
+    }
+
+    @Test
+    public void readLazy () throws IOException
+    {
+        try (var stream = getClass().getResourceAsStream("/thbreak"); var lazy = getClass().getResourceAsStream("/thbreak"))
+        {
+            assumeTrue(stream != null && lazy != null);
+
+            final var reader = GdbMiReader.fromStream(stream, UTF_8);
+            final var lazyReader = new GdbMiReader( new GdbMiByteCursor(lazy, 16) ).lazy(true);
+
+            while (true)
+            {
+                final var expected = reader.read();
+                final var actual = lazyReader.read();
+                if (expected == null) { assertThat(actual, nullValue()); break; }
+                assertThat(actual, notNullValue());
+                assertThat(actual.toString(), equalTo(expected.toString()));
+            }
+        }
+
+        final var bytes = "=breakpoint-created,bkpt={number=\"1\",addr=\"0x0000105f\",thread-groups=[\"i1\"],at=\"<\\\"_start\\\">\"},bare=x\n".getBytes(UTF_8);
+        final var message = (GdbMiMessage.RecordMessage) GdbMiReader.fromStream(new ByteArrayInputStream(bytes), UTF_8).lazy(true).read();
+        final var bkpt = message.content().properties().get("bkpt", GdbMiProperties.class);
+        assertThat(bkpt.get("addr", String.class), equalTo("0x0000105f"));
+        assertThat(bkpt.get("at", String.class), equalTo("<\"_start\">"));
+        assertThat(bkpt.get("thread-groups", GdbMiList.class).get(0, String.class), equalTo("i1"));
+        assertThat(message.content().properties().get("bare", String.class), equalTo("x"));
+    }
+
+    @Test
+    public void readVisitor () throws IOException
+    {
+        final var bytes = "1^done,stack=[frame={level=\"0\",func=\"main\"},frame={level=\"1\",func=\"start\"}],empty={}\n2^done,stack=[frame={level=\"0\"}]\n3^error,msg=\"bad\"\n(gdb) \n".getBytes(UTF_8);
+        final var events = new ArrayList<String>();
+        final var visitor = new GdbMiVisitor() {
+            @Override public boolean tupleBegin () { events.add("{"); return true; }
+            @Override public boolean tupleEnd () { events.add("}"); return true; }
+            @Override public boolean listBegin () { events.add("["); return true; }
+            @Override public boolean listEnd () { events.add("]"); return true; }
+            @Override public boolean key (String name) { events.add(name + "="); return true; }
+            @Override public boolean value (String value) { events.add(value); return ! value.equals("start"); }
+        };
+        final var reader = GdbMiReader.fromStream(new ByteArrayInputStream(bytes), UTF_8)
+            .visitors(context -> context == 2 ? null : visitor);
+
+        final var first = (GdbMiMessage.RecordMessage) reader.read();
+        assertThat(first.content().type(), equalTo("done"));
+        assertThat(first.content().properties().get("stack", GdbMiList.class), nullValue());
+        assertThat(String.join("", events), equalTo("stack=[frame={level=0func=main}frame={level=1func=start"));
+
+        final var second = (GdbMiMessage.RecordMessage) reader.read();
+        assertThat(second.content().properties().get("stack", GdbMiList.class).size(), equalTo(1));
+
+        final var third = (GdbMiMessage.RecordMessage) reader.read();
+        assertThat(third.content().type(), equalTo("error"));
+        assertThat(third.content().properties().get("msg", String.class), equalTo("bad"));
+
+        assertThat(reader.read().type(), equalTo(GdbMiType.Prompt));
+    }
+
     @Test
     public void readMessage () throws IOException
     {
@@ -88,6 +268,64 @@ public class GdbMiParserTest
         );
     }
 
+    @Test
+    public void readPropertiesDuplicate () throws IOException
+    {
+        final var reader = new StringReader("stack={frame={level=\"0\"},frame={level=\"1\"}},depth=\"2\"");
+        final var read = GdbMiReader.readProperties(reader);
+        assertThat(read.value.size(), equalTo(2));
+        assertThat(read.value.name(0), equalTo("stack"));
+        assertThat(read.value.name(1), equalTo("depth"));
+        assertThat(read.value.toString(), equalTo("{stack={frame={level=0}, frame={level=1}}, depth=2}"));
+
+        final var stack = read.value.get("stack", GdbMiProperties.class);
+        assertThat(stack.get("frame", GdbMiProperties.class).get("level", String.class), equalTo("0"));
+        final var frames = stack.getAll("frame", GdbMiProperties.class);
+        assertThat(frames.size(), equalTo(2));
+        assertThat(frames.get(1).get("level", String.class), equalTo("1"));
+    }
+
+    @Test
+    public void readSymbols () throws IOException
+    {
+        final var line = "*stopped,reason=\"breakpoint-hit\",frame={addr=\"0x0000105f\",func=\"main\"},thread-id=\"1\"\n";
+        final var bytes = (line + line).getBytes(UTF_8);
+
+        final var stream = GdbMiReader.fromStream(new ByteArrayInputStream(bytes), UTF_8);
+        final var first = ((GdbMiMessage.RecordMessage) stream.read()).content();
+        final var second = ((GdbMiMessage.RecordMessage) stream.read()).content();
+        assertThat(first.type(), sameInstance(second.type()));
+        assertThat(first.properties().name(0), sameInstance(second.properties().name(0)));
+        assertThat(first.properties().get("reason", String.class), sameInstance(second.properties().get("reason", String.class)));
+        assertThat(first.properties().get("frame", GdbMiProperties.class).name(0), sameInstance("addr"));
+
+        final var reader = GdbMiReader.fromReader(new StringReader(line));
+        final var third = ((GdbMiMessage.RecordMessage) reader.read()).content();
+        assertThat(third.properties().get("reason", String.class), sameInstance(first.properties().get("reason", String.class)));
+    }
+
+    @Test
+    public void readNumbers () throws IOException
+    {
+        final var line = "*stopped,bkptno=\"12\",frame={addr=\"0xffffffffff600000\",line=\"-3\"},thread-id=\"1\",regs=[\"0x10\",\"7\"],name=\"main\",esc=\"\\\"1\"\n";
+        final var bytes = (line + line).getBytes(UTF_8);
+        final var reader = GdbMiReader.fromStream(new ByteArrayInputStream(bytes), UTF_8);
+
+        for (var lazy : new boolean[] { false, true })
+        {
+            final var properties = ((GdbMiMessage.RecordMessage) reader.lazy(lazy).read()).content().properties();
+            assertThat(properties.getInt("bkptno"), equalTo(12));
+            assertThat(properties.getLong("thread-id"), equalTo(1L));
+            assertThat(properties.get("frame", GdbMiProperties.class).getAddress("addr"), equalTo(0xffffffffff600000L));
+            assertThat(properties.get("frame", GdbMiProperties.class).getInt("line"), equalTo(-3));
+            assertThat(properties.get("regs", GdbMiList.class).getLong(0), equalTo(16L));
+            assertThat(properties.get("regs", GdbMiList.class).getInt(1), equalTo(7));
+            assertThrows(NumberFormatException.class, () -> properties.getLong("name"));
+            assertThrows(NumberFormatException.class, () -> properties.getLong("esc"));
+            assertThrows(NoSuchElementException.class, () -> properties.getLong("missing"));
+        }
+    }
+
     @Test
     public void readQuotedString () throws IOException
     {
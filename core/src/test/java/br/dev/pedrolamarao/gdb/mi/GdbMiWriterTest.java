@@ -0,0 +1,125 @@
+package br.dev.pedrolamarao.gdb.mi;
+
+import lombok.var;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+
+public class GdbMiWriterTest
+{
+    static String write (GdbMiWriter writer)
+    {
+        return writer.write(new GdbMiBuffer()).toString();
+    }
+
+    @Test
+    public void breakDelete ()
+    {
+        assertThat(write(GdbMiWriter.breakDelete().context(1)), equalTo("1-break-delete\n"));
+        assertThat(write(GdbMiWriter.breakDelete().breakpoints(2, 10)), equalTo("-break-delete 2 10\n"));
+    }
+
+    @Test
+    public void breakInsert ()
+    {
+        assertThat(write(GdbMiWriter.breakInsert().symbol("main")), equalTo("-break-insert main\n"));
+        assertThat(write(GdbMiWriter.breakInsert().hardware().pending().symbol("main").context(12)), equalTo("12-break-insert -h -f main\n"));
+    }
+
+    @Test
+    public void breakWatch ()
+    {
+        assertThat(write(GdbMiWriter.breakWatch().read().symbol("argc").context(0)), equalTo("0-break-watch -r argc\n"));
+        assertThat(write(GdbMiWriter.breakWatch().symbol("a + b")), equalTo("-break-watch \"a + b\"\n"));
+    }
+
+    @Test
+    public void data ()
+    {
+        assertThat(write(GdbMiWriter.dataListRegisterValues().context(4)), equalTo("4-data-list-register-values x\n"));
+        assertThat(write(GdbMiWriter.dataListRegisterValues().frame(1, 0).format("N").registers(0, 16)), equalTo("-data-list-register-values --thread 1 --frame 0 N 0 16\n"));
+    }
+
+    @Test
+    public void exec ()
+    {
+        assertThat(write(GdbMiWriter.execContinue().context(7)), equalTo("7-exec-continue\n"));
+        assertThat(write(GdbMiWriter.execContinue().reverse()), equalTo("-exec-continue --reverse\n"));
+        assertThat(write(GdbMiWriter.execRun().stop().context(2147483647)), equalTo("2147483647-exec-run --start\n"));
+        assertThat(write(GdbMiWriter.execInterrupt().all().context(3)), equalTo("3-exec-interrupt --all\n"));
+        assertThat(write(GdbMiWriter.execFinish().context(8)), equalTo("8-exec-finish\n"));
+        assertThat(write(GdbMiWriter.execNext().reverse()), equalTo("-exec-next --reverse\n"));
+        assertThat(write(GdbMiWriter.execStep().context(9)), equalTo("9-exec-step\n"));
+    }
+
+    @Test
+    public void file ()
+    {
+        assertThat(write(GdbMiWriter.fileExecAndSymbols().path("/tmp/a.out")), equalTo("-file-exec-and-symbols /tmp/a.out\n"));
+        assertThat(write(GdbMiWriter.fileExecFile().path("C:\\Program Files\\a.exe")), equalTo("-file-exec-file \"C:\\\\Program Files\\\\a.exe\"\n"));
+    }
+
+    @Test
+    public void gdb ()
+    {
+        assertThat(write(GdbMiWriter.gdbExit().context(123)), equalTo("123-gdb-exit\n"));
+        assertThat(write(GdbMiWriter.gdbSet().pair("print pretty", "on")), equalTo("-gdb-set print pretty on\n"));
+    }
+
+    @Test
+    public void interpreterExec ()
+    {
+        assertThat(write(GdbMiWriter.interpreterExec("console", "info", "registers")), equalTo("-interpreter-exec console \"info registers\"\n"));
+        assertThat(write(GdbMiWriter.interpreterExec("console", "print \"\\t\"")), equalTo("-interpreter-exec console \"print \\\"\\\\t\\\"\"\n"));
+    }
+
+    @Test
+    public void key ()
+    {
+        assertThat(GdbMiWriter.stackListFrames().context(1).key(), equalTo(GdbMiWriter.stackListFrames().context(2).key()));
+        assertThat(GdbMiWriter.stackListFrames().thread(1).key(), not(equalTo(GdbMiWriter.stackListFrames().key())));
+        assertThat(GdbMiWriter.stackListLocals().names().key(), not(equalTo(GdbMiWriter.stackListLocals().key())));
+        assertThat(GdbMiWriter.dataListRegisterValues().registers(0, 1).key(), equalTo(GdbMiWriter.dataListRegisterValues().registers(0, 1).key()));
+        assertThat(GdbMiWriter.dataListRegisterValues().registers(0, 1).key(), not(equalTo(GdbMiWriter.dataListRegisterValues().key())));
+        assertThat(GdbMiWriter.gdbExit().key(), nullValue());
+    }
+
+    @Test
+    public void stack ()
+    {
+        assertThat(write(GdbMiWriter.stackListFrames().context(5)), equalTo("5-stack-list-frames\n"));
+        assertThat(write(GdbMiWriter.stackListFrames().thread(2).range(0, 9)), equalTo("-stack-list-frames --thread 2 0 9\n"));
+        assertThat(write(GdbMiWriter.stackListLocals()), equalTo("-stack-list-locals --simple-values\n"));
+        assertThat(write(GdbMiWriter.stackListLocals().frame(1, 3).all().context(6)), equalTo("6-stack-list-locals --thread 1 --frame 3 --all-values\n"));
+    }
+
+    @Test
+    public void targetSelect ()
+    {
+        assertThat(write(GdbMiWriter.targetSelect().exec("/tmp/a.out")), equalTo("-target-select exec /tmp/a.out\n"));
+        assertThat(write(GdbMiWriter.targetSelect().tcp("localhost", "1234")), equalTo("-target-select remote tcp:localhost:1234\n"));
+    }
+
+    @Test
+    public void reuse () throws Exception
+    {
+        final var buffer = new GdbMiBuffer(4);
+        GdbMiWriter.fileExecAndSymbols().path("/tmp/\u00e1\u4e2d\ud83d\ude00").write(buffer);
+        final var expected = "-file-exec-and-symbols /tmp/\u00e1\u4e2d\ud83d\ude00\n";
+        assertThat(buffer.toString(), equalTo(expected));
+        assertThat(buffer.length(), equalTo(expected.getBytes(StandardCharsets.UTF_8).length));
+
+        GdbMiWriter.gdbExit().write(buffer.reset());
+        assertThat(buffer.toString(), equalTo("-gdb-exit\n"));
+
+        final var writer = new StringWriter();
+        GdbMiWriter.gdbExit().context(1).write(writer);
+        assertThat(writer.toString(), equalTo("1-gdb-exit\n"));
+    }
+}
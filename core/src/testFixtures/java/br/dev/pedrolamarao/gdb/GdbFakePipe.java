@@ -0,0 +1,145 @@
+package br.dev.pedrolamarao.gdb;
+
+import lombok.var;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Fake GDB pipe.
+ *
+ * <p>Bounded in-memory byte pipe, usable from any threads, with operating system pipe semantics:
+ * writers block while full, readers block while empty, readers see end-of-stream after close.</p>
+ */
+
+final class GdbFakePipe
+{
+    private final byte[] buffer;
+
+    private int head = 0;
+
+    private int count = 0;
+
+    private boolean closed = false;
+
+    GdbFakePipe (int capacity)
+    {
+        this.buffer = new byte[capacity];
+    }
+
+    synchronized int available ()
+    {
+        return count;
+    }
+
+    synchronized void close ()
+    {
+        closed = true;
+        notifyAll();
+    }
+
+    synchronized int read (byte[] array, int offset, int length) throws IOException
+    {
+        if (length == 0) return 0;
+        try
+        {
+            while (count == 0 && ! closed) wait();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        }
+        if (count == 0) return -1;
+
+        final var size = Math.min(length, count);
+        final var first = Math.min(size, buffer.length - head);
+        System.arraycopy(buffer, head, array, offset, first);
+        System.arraycopy(buffer, 0, array, offset + first, size - first);
+        head = (head + size) % buffer.length;
+        count -= size;
+        notifyAll();
+        return size;
+    }
+
+    synchronized void write (byte[] array, int offset, int length) throws IOException
+    {
+        while (length != 0)
+        {
+            try
+            {
+                while (count == buffer.length && ! closed) wait();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted", e);
+            }
+            if (closed) throw new IOException("pipe closed");
+
+            final var tail = (head + count) % buffer.length;
+            final var size = Math.min(length, Math.min(buffer.length - count, buffer.length - tail));
+            System.arraycopy(array, offset, buffer, tail, size);
+            count += size;
+            offset += size;
+            length -= size;
+            notifyAll();
+        }
+    }
+
+    InputStream input ()
+    {
+        return new InputStream()
+        {
+            @Override
+            public int available ()
+            {
+                return GdbFakePipe.this.available();
+            }
+
+            @Override
+            public void close ()
+            {
+                GdbFakePipe.this.close();
+            }
+
+            @Override
+            public int read () throws IOException
+            {
+                final var unit = new byte[1];
+                return GdbFakePipe.this.read(unit, 0, 1) == -1 ? -1 : (unit[0] & 0xFF);
+            }
+
+            @Override
+            public int read (byte[] array, int offset, int length) throws IOException
+            {
+                return GdbFakePipe.this.read(array, offset, length);
+            }
+        };
+    }
+
+    OutputStream output ()
+    {
+        return new OutputStream()
+        {
+            @Override
+            public void close ()
+            {
+                GdbFakePipe.this.close();
+            }
+
+            @Override
+            public void write (int unit) throws IOException
+            {
+                GdbFakePipe.this.write(new byte[] { (byte) unit }, 0, 1);
+            }
+
+            @Override
+            public void write (byte[] array, int offset, int length) throws IOException
+            {
+                GdbFakePipe.this.write(array, offset, length);
+            }
+        };
+    }
+}
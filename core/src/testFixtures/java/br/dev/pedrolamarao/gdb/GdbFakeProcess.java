@@ -0,0 +1,211 @@
+package br.dev.pedrolamarao.gdb;
+
+import lombok.var;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fake GDB process.
+ *
+ * <p>In-memory stand-in for a GDB process with the MI interpreter, replying to commands as scripted.
+ * Commands are served one at a time, in order, as GDB does.</p>
+ */
+
+public final class GdbFakeProcess extends Process
+{
+    private final GdbFakeScript script;
+
+    private final GdbFakePipe input = new GdbFakePipe(65536);
+
+    private final GdbFakePipe output = new GdbFakePipe(65536);
+
+    private final GdbFakePipe error = new GdbFakePipe(1);
+
+    private final HashMap<String, Integer> counts = new HashMap<>();
+
+    private final CountDownLatch exited = new CountDownLatch(1);
+
+    private volatile int exitValue = 0;
+
+    GdbFakeProcess (GdbFakeScript script)
+    {
+        this.script = script;
+        error.close();
+    }
+
+    /**
+     * Start fake GDB process.
+     *
+     * @param script  script
+     * @return        new process
+     */
+
+    public static GdbFakeProcess start (GdbFakeScript script)
+    {
+        final var process = new GdbFakeProcess(script);
+        final var thread = new Thread(process::serve, "gdb-fake");
+        thread.setDaemon(true);
+        thread.start();
+        return process;
+    }
+
+    /**
+     * Start GDB instance over new fake GDB process.
+     *
+     * @param script    script
+     * @param reactor   reactor, or null
+     * @param handlers  handlers
+     * @return          new instance
+     */
+
+    public static Gdb gdb (GdbFakeScript script, GdbReactor reactor, GdbHandler... handlers)
+    {
+        return new Gdb(new GdbProcess(start(script)), Arrays.asList(handlers), reactor);
+    }
+
+    /**
+     * Start GDB instance over a new fake process, configured by builder; builder command is ignored.
+     *
+     * @param builder  GDB instance builder
+     * @param script   script
+     * @return         new instance
+     */
+
+    public static Gdb gdb (Gdb.Builder builder, GdbFakeScript script)
+    {
+        return builder.start(new GdbProcess(start(script)));
+    }
+
+    @Override
+    public OutputStream getOutputStream ()
+    {
+        return input.output();
+    }
+
+    @Override
+    public InputStream getInputStream ()
+    {
+        return output.input();
+    }
+
+    @Override
+    public InputStream getErrorStream ()
+    {
+        return error.input();
+    }
+
+    @Override
+    public int waitFor () throws InterruptedException
+    {
+        exited.await();
+        return exitValue;
+    }
+
+    @Override
+    public boolean waitFor (long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return exited.await(timeout, unit);
+    }
+
+    @Override
+    public int exitValue ()
+    {
+        if (exited.getCount() != 0) throw new IllegalThreadStateException("process has not exited");
+        return exitValue;
+    }
+
+    @Override
+    public boolean isAlive ()
+    {
+        return exited.getCount() != 0;
+    }
+
+    @Override
+    public void destroy ()
+    {
+        exitValue = 137;
+        input.close();
+        output.close();
+    }
+
+    // internal
+
+    private void serve ()
+    {
+        try
+        {
+            final var commands = new BufferedReader(new InputStreamReader(input.input(), StandardCharsets.UTF_8));
+            final var reply = new StringBuilder();
+
+            for (var line : script.banner) reply.append(line).append('\n');
+            reply.append("(gdb) \n");
+            send(reply);
+
+            while (true)
+            {
+                final var command = commands.readLine();
+                if (command == null) break;
+
+                final var start = skipToken(command);
+                final var token = command.substring(0, start);
+                final var operation = operation(command, start);
+                final int count = counts.merge(operation, 1, Integer::sum) - 1;
+
+                if (script.latency != 0) {
+                    final var deadline = System.nanoTime() + script.latency;
+                    for (var left = script.latency; left > 0; left = deadline - System.nanoTime())
+                        LockSupport.parkNanos(left);
+                }
+
+                for (var line : script.reply(operation, count)) {
+                    if (line.startsWith("^")) reply.append(token);
+                    reply.append(line).append('\n');
+                }
+                reply.append("(gdb) \n");
+                send(reply);
+
+                if (operation.equals("-gdb-exit")) break;
+            }
+        }
+        catch (IOException e)
+        {
+            // destroyed
+        }
+        finally
+        {
+            input.close();
+            output.close();
+            exited.countDown();
+        }
+    }
+
+    private void send (StringBuilder reply) throws IOException
+    {
+        final var bytes = reply.toString().getBytes(StandardCharsets.UTF_8);
+        output.write(bytes, 0, bytes.length);
+        reply.setLength(0);
+    }
+
+    static int skipToken (String line)
+    {
+        int i = 0;
+        while (i < line.length() && Character.isDigit(line.charAt(i))) ++i;
+        return i;
+    }
+
+    static String operation (String line, int start)
+    {
+        final var end = line.indexOf(' ', start);
+        return line.substring(start, end == -1 ? line.length() : end);
+    }
+}
@@ -0,0 +1,213 @@
+package br.dev.pedrolamarao.gdb;
+
+import lombok.var;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fake GDB script.
+ *
+ * <p>Replies of a {@link GdbFakeProcess} by command operation.
+ * Result records, lines starting with {@code ^}, are prefixed with the command token;
+ * every reply is followed by a prompt.</p>
+ *
+ * <p>Transcripts are GDB/MI sessions as text: lines starting with {@code -}, optionally after a token, are commands,
+ * and the lines following a command are its reply. Lines before the first command are the banner.
+ * Prompts are dropped, since replies are prompted anyway.
+ * Commands recorded many times replay their replies in order, then repeat the last one.</p>
+ */
+
+public final class GdbFakeScript
+{
+    final List<String> banner;
+
+    final HashMap<String, List<List<String>>> replies;
+
+    final List<String> fallback;
+
+    final long latency;
+
+    GdbFakeScript (List<String> banner, HashMap<String, List<List<String>>> replies, List<String> fallback, long latency)
+    {
+        this.banner = banner;
+        this.replies = replies;
+        this.fallback = fallback;
+        this.latency = latency;
+    }
+
+    /**
+     * Fake GDB script builder.
+     *
+     * @return new builder
+     */
+
+    public static Builder builder ()
+    {
+        return new Builder();
+    }
+
+    /**
+     * Result record with a payload, for sizing replies.
+     *
+     * @param size  record length, excluding newline
+     * @return      record
+     */
+
+    public static String done (int size)
+    {
+        final var prefix = "^done,value=\"";
+        final var builder = new StringBuilder(size).append(prefix);
+        for (int i = prefix.length() + 1; i < size; ++i) builder.append((char) ('a' + i % 26));
+        return builder.append('"').toString();
+    }
+
+    /**
+     * Reply to command.
+     *
+     * @param operation  command operation, without token and arguments
+     * @param count      count of previous commands with this operation
+     * @return           reply lines
+     */
+
+    List<String> reply (String operation, int count)
+    {
+        final var recorded = replies.get(operation);
+        if (recorded == null) return fallback;
+        return recorded.get(Math.min(count, recorded.size() - 1));
+    }
+
+    /**
+     * Fake GDB script builder.
+     */
+
+    public static final class Builder
+    {
+        private final ArrayList<String> banner = new ArrayList<>();
+
+        private final HashMap<String, List<List<String>>> replies = new HashMap<>();
+
+        private List<String> fallback = Collections.singletonList("^done");
+
+        private long latency = 0;
+
+        Builder ()
+        {
+            banner.add("=thread-group-added,id=\"i1\"");
+            reply("-gdb-exit", "^exit");
+        }
+
+        /**
+         * Property: banner, printed on start.
+         *
+         * @param lines  output lines
+         * @return       this builder
+         */
+
+        public Builder banner (String... lines)
+        {
+            banner.clear();
+            banner.addAll(Arrays.asList(lines));
+            return this;
+        }
+
+        /**
+         * Property: reply to command.
+         *
+         * @param operation  command operation, such as {@code -break-insert}
+         * @param lines      output lines
+         * @return           this builder
+         */
+
+        public Builder reply (String operation, String... lines)
+        {
+            replies.put(operation, Collections.singletonList(Arrays.asList(lines)));
+            return this;
+        }
+
+        /**
+         * Property: reply to commands without a reply.
+         *
+         * @param lines  output lines
+         * @return       this builder
+         */
+
+        public Builder fallback (String... lines)
+        {
+            fallback = Arrays.asList(lines);
+            return this;
+        }
+
+        /**
+         * Property: delay before every reply.
+         *
+         * @param time  delay
+         * @param unit  time unit
+         * @return      this builder
+         */
+
+        public Builder latency (long time, TimeUnit unit)
+        {
+            latency = unit.toNanos(time);
+            return this;
+        }
+
+        /**
+         * Property: banner and replies recorded in transcript.
+         *
+         * @param reader       transcript
+         * @return             this builder
+         * @throws IOException if reader failure
+         */
+
+        public Builder transcript (Reader reader) throws IOException
+        {
+            final var recorded = new HashMap<String, List<List<String>>>();
+            final var lines = new BufferedReader(reader);
+            var reply = new ArrayList<String>();
+            banner.clear();
+            String operation = null;
+            while (true)
+            {
+                final var line = lines.readLine();
+                if (line == null) break;
+
+                final var start = GdbFakeProcess.skipToken(line);
+                if (line.isEmpty() || line.startsWith("(gdb)")) {
+                    continue;
+                }
+                else if (line.startsWith("-", start)) {
+                    operation = GdbFakeProcess.operation(line, start);
+                    reply = new ArrayList<>();
+                    recorded.computeIfAbsent(operation, key -> new ArrayList<>()).add(reply);
+                }
+                else if (operation == null) {
+                    banner.add(line);
+                }
+                else {
+                    reply.add(line.substring(line.startsWith("^", start) ? start : 0));
+                }
+            }
+            replies.putAll(recorded);
+            return this;
+        }
+
+        /**
+         * Build script.
+         *
+         * @return new script
+         */
+
+        public GdbFakeScript build ()
+        {
+            return new GdbFakeScript(new ArrayList<>(banner), new HashMap<>(replies), fallback, latency);
+        }
+    }
+}
@@ -11,7 +11,10 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class GdbExec implements AutoCloseable
 {
@@ -85,11 +88,27 @@ public class GdbExec implements AutoCloseable
 
     //
 
+    // bounded by the time limit even if configure changed the command deadline
+    private GdbMiMessage.RecordMessage get ( Future<GdbMiMessage.RecordMessage> future ) throws Exception
+    {
+        try
+        {
+            return future.get(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
+        }
+        catch (ExecutionException e)
+        {
+            // command deadlines time out as waiting would
+            if (e.getCause() instanceof TimeoutException) throw (TimeoutException) e.getCause();
+            throw e;
+        }
+    }
+
     public GdbMiMessage.RecordMessage breakInsertAtSymbol ( String symbol, Action<? super Gdb.GdbBreakInsertBuilder> configure ) throws Exception
     {
         final var builder = gdb.breakInsertAtSymbol(symbol);
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -100,8 +119,9 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage breakWatch ( String symbol, Action<? super Gdb.GdbBreakWatchBuilder> configure ) throws Exception
     {
         final var builder = gdb.breakWatch(symbol);
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -117,8 +137,9 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage execContinue ( Action<? super Gdb.GdbExecContinueBuilder> configure ) throws Exception
     {
         final var builder = gdb.execContinue();
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -129,8 +150,9 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage execRun ( Action<? super Gdb.GdbExecRunBuilder> configure ) throws Exception
     {
         final var builder = gdb.execRun();
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -141,8 +163,9 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage fileExecAndSymbols ( String path, Action<? super Gdb.GdbFileExecAndSymbolsBuilder> configure ) throws Exception
     {
         final var builder = gdb.fileExecAndSymbols(path);
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -153,7 +176,8 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage fileExecFile ( String path ) throws Exception
     {
         final var builder = gdb.fileExecFile(path);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -164,8 +188,9 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage gdbExit ( Action<? super Gdb.GdbExitBuilder> configure ) throws Exception
     {
         final var builder = gdb.gdbExit();
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -176,8 +201,9 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage gdbSet ( String name, Object value, Action<? super Gdb.GdbSetBuilder> configure ) throws Exception
     {
         final var builder = gdb.gdbSet(name, value.toString());
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -188,7 +214,8 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage interpreterExec ( String interpreter, String... command ) throws Exception
     {
         final var builder = gdb.interpreterExec(interpreter, command);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -199,8 +226,9 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage targetSelectExec ( String path, Action<? super Gdb.GdbTargetSelectBuilder> configure ) throws Exception
     {
         final var builder = gdb.targetSelectExec(path);
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);
@@ -211,8 +239,9 @@ public class GdbExec implements AutoCloseable
     public GdbMiMessage.RecordMessage targetSelectTcp ( String host, String port, Action<? super Gdb.GdbTargetSelectBuilder> configure ) throws Exception
     {
         final var builder = gdb.targetSelectTcp(host, port);
+        builder.deadline(timeLimit.toNanos(), TimeUnit.NANOSECONDS);
         configure.execute(builder);
-        final var result = builder.go().get(timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+        final var result = get(builder.go());
         if (result.content().type().contentEquals("error")) {
             final var message = result.content().properties().get("msg", String.class);
             throw new RuntimeException("gdb: failure: " + message);